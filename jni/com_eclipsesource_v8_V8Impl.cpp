@@ -10,28 +10,191 @@
  ******************************************************************************/
 #include <jni.h>
 #include <iostream>
+#include <map>
+#include <vector>
 #include <v8-debug.h>
 #include <v8.h>
-#include <map>
+#include <string.h>
+#include <stdint.h>
+#include <sys/time.h>
+#include <pthread.h>
 #include "com_eclipsesource_v8_V8Impl.h"
 
 using namespace std;
 using namespace v8;
 
+#define NATIVE_MEMORY_FIELDS 9
+#define KILOBYTE 1024
+#define MEGABYTE (1024 * 1024)
+#define KEY_CACHE_SIZE 256
+#define KEY_CACHE_MAX_LENGTH 64
+
+class KeyCacheEntry {
+public:
+    int length;
+    jchar chars[KEY_CACHE_MAX_LENGTH];
+    Persistent<String> key;
+};
+
+#define PERSISTENT_HANDLE_SIZE 40
+#define IDENTITY_ENTRY_SIZE 48
+#define EXTERNAL_MEMORY_GRANULARITY (64 * 1024)
+#define HANDLE_INDEX_BITS 22
+#define HANDLE_INDEX_MASK ((1 << HANDLE_INDEX_BITS) - 1)
+#define HANDLE_GENERATION_MASK 0x1FF
+#define SLOT_CHUNK_BITS 10
+#define SLOT_CHUNK_SIZE (1 << SLOT_CHUNK_BITS)
+#define SLOT_CHUNK_COUNT ((HANDLE_INDEX_MASK + 1) >> SLOT_CHUNK_BITS)
+
+int handleGeneration(int handle) {
+	return (handle >> HANDLE_INDEX_BITS) & HANDLE_GENERATION_MASK;
+}
+
+/*
+ * Dense handle table. A handle carries the slot index in its low bits and the
+ * generation of the slot in its high bits, so a stale handle to a released
+ * slot is detected instead of silently creating a new entry. Slots live in
+ * fixed size chunks that never move, which keeps lookups O(1) and allows
+ * Persistent handles to be stored inline.
+ */
+template <class T>
+class SlotTable {
+public:
+	SlotTable() : count(0), chunkCount(0) {
+		memset(chunks, 0, sizeof(chunks));
+	}
+
+	~SlotTable() {
+		for (int i = 0; i < SLOT_CHUNK_COUNT; i++) {
+			delete[] chunks[i];
+		}
+	}
+
+	T* find(int handle) {
+		if ( handle < 0 ) {
+			return NULL;
+		}
+		int index = handle & HANDLE_INDEX_MASK;
+		T* chunk = chunks[index >> SLOT_CHUNK_BITS];
+		if ( chunk == NULL ) {
+			return NULL;
+		}
+		T* slot = &chunk[index & (SLOT_CHUNK_SIZE - 1)];
+		if ( !slot->used || slot->generation != handleGeneration(handle) ) {
+			return NULL;
+		}
+		return slot;
+	}
+
+	T* allocate(int handle) {
+		int index = handle & HANDLE_INDEX_MASK;
+		T*& chunk = chunks[index >> SLOT_CHUNK_BITS];
+		if ( chunk == NULL ) {
+			chunk = new T[SLOT_CHUNK_SIZE];
+			chunkCount++;
+		}
+		T* slot = &chunk[index & (SLOT_CHUNK_SIZE - 1)];
+		if ( !slot->used ) {
+			count++;
+		}
+		slot->used = true;
+		slot->generation = handleGeneration(handle);
+		return slot;
+	}
+
+	void free(T* slot) {
+		slot->used = false;
+		count--;
+	}
+
+	// Frees every slot in use, handing it to release first.
+	void freeAll(void (*release)(T*)) {
+		for (int i = 0; i < SLOT_CHUNK_COUNT; i++) {
+			if ( chunks[i] == NULL ) {
+				continue;
+			}
+			for (int j = 0; j < SLOT_CHUNK_SIZE; j++) {
+				if ( chunks[i][j].used ) {
+					release(&chunks[i][j]);
+					chunks[i][j].used = false;
+				}
+			}
+		}
+		count = 0;
+	}
+
+	int size() {
+		return count;
+	}
+
+	int64_t allocatedBytes() {
+		return (int64_t) chunkCount * SLOT_CHUNK_SIZE * sizeof(T) + sizeof(chunks);
+	}
+
+private:
+	T* chunks[SLOT_CHUNK_COUNT];
+	int count;
+	int chunkCount;
+};
+
+class ObjectSlot {
+public:
+	ObjectSlot() : used(false), generation(0), collected(false), indexed(false), identityHash(0) {}
+	bool used;
+	int generation;
+	bool collected;
+	bool indexed;
+	int identityHash;
+	Persistent<Object> object;
+};
+
+class MethodDescriptor {
+public:
+	MethodDescriptor() : retired(false) {}
+	int methodID;
+	int v8RuntimeHandle;
+	bool retired;
+};
+
 class V8Runtime {
 public:
+    V8Runtime() : keyCache(NULL), externalBytes(0), reportedExternalBytes(0), heapLimitThreshold(0), initialHeapLimitThreshold(0), gcStartMicros(0) {}
     Isolate* isolate;
     Isolate::Scope* isolate_scope;
     Persistent<Context> context_;
-    std::map <int, Persistent<Object>* > objects;
+    Persistent<ObjectTemplate> globalTemplate_;
+    Persistent<Function> jsonStringify;
+    SlotTable<ObjectSlot> objects;
+    std::multimap<int, int> identities;
+    std::vector<MethodDescriptor*> methodDescriptors;
+    std::vector<MethodDescriptor*> retiredDescriptors;
+    KeyCacheEntry* keyCache;
+    // the result of the last _serialize or _toJson that did not fit
+    std::vector<char> pendingSerialized;
+    int64_t externalBytes;
+    int64_t reportedExternalBytes;
+    size_t heapLimitThreshold;
+    size_t initialHeapLimitThreshold;
+    int64_t gcStartMicros;
     jobject v8;
 };
 
+class RuntimeSlot {
+public:
+	RuntimeSlot() : used(false), generation(0), runtime(NULL) {}
+	bool used;
+	int generation;
+	V8Runtime* runtime;
+};
+
 const char* ToCString(const String::Utf8Value& value) {
   return *value ? *value : "<string conversion failed>";
 }
 
-std::map <int, V8Runtime*> v8Isolates;
+// runtimes are created and released on different threads, allocate and free
+// slots only while holding v8IsolatesLock
+SlotTable<RuntimeSlot> v8Isolates;
+pthread_mutex_t v8IsolatesLock = PTHREAD_MUTEX_INITIALIZER;
 JavaVM* jvm = NULL;
 jclass v8cls = NULL;
 jclass v8ObjectCls = NULL;
@@ -40,11 +203,15 @@ jclass v8ResultsUndefinedCls = NULL;
 jclass v8ScriptCompilationCls = NULL;
 jclass v8ScriptExecutionException = NULL;
 jclass v8RuntimeException = NULL;
+jclass v8ScriptTerminatedException = NULL;
 jclass stringCls = NULL;
 jclass integerCls = NULL;
 jclass doubleCls = NULL;
 jclass booleanCls = NULL;
 jclass errorCls = NULL;
+jmethodID nearHeapLimitMethod = NULL;
+jmethodID gcStartedMethod = NULL;
+jmethodID gcFinishedMethod = NULL;
 
 void throwParseException( JNIEnv *env, Isolate* isolate, TryCatch* tryCatch);
 void throwExecutionException( JNIEnv *env, Isolate* isolate, TryCatch* tryCatch);
@@ -52,16 +219,26 @@ void throwError( JNIEnv *env, const char *message );
 void throwV8RuntimeException( JNIEnv *env, const char *message );
 void throwResultUndefinedException( JNIEnv *env, const char *message );
 Isolate* getIsolate(JNIEnv *env, int handle);
+V8Runtime* getRuntime(int handle);
+Handle<Object> getObject(JNIEnv* env, Isolate* isolate, V8Runtime* runtime, int handle);
+void setObject(V8Runtime* runtime, int handle, Handle<Object> object);
 int getType(Handle<Value> v8Value);
 
 #define SETUP(env, v8RuntimeHandle, errorReturnResult) getIsolate(env, v8RuntimeHandle);\
 		if ( isolate == NULL ) {\
 			return errorReturnResult;\
 		}\
+		V8Runtime* runtime = getRuntime(v8RuntimeHandle);\
 		Isolate::Scope isolateScope(isolate);\
 		HandleScope handle_scope(isolate);\
-		Local<Context> context = Local<Context>::New(isolate,v8Isolates[v8RuntimeHandle]->context_);\
+		Local<Context> context = Local<Context>::New(isolate, runtime->context_);\
 		Context::Scope context_scope(context);
+// getObject leaves a pending V8RuntimeException and returns an empty handle
+// for stale or collected handles; callers bail out before touching it.
+#define ASSERT_OBJECT_VALID(object, errorReturnResult) \
+		if ( object.IsEmpty() ) {\
+			return errorReturnResult;\
+		}
 #define ASSERT_IS_NUMBER(v8Value) \
 		if (v8Value.IsEmpty() || v8Value->IsUndefined() || !v8Value->IsNumber()) {\
 			throwResultUndefinedException(env, "");\
@@ -104,25 +281,130 @@ int getHandle(JNIEnv* env, jobject object) {
 	return handle;
 }
 
+#define STRING_STACK_BUFFER_SIZE 256
+
+bool isOneByte(const jchar* chars, int length) {
+	for (int i = 0; i < length; i++) {
+		if ( chars[i] > 0xFF ) {
+			return false;
+		}
+	}
+	return true;
+}
+
+void narrow(const jchar* chars, int length, uint8_t* result) {
+	for (int i = 0; i < length; i++) {
+		result[i] = static_cast<uint8_t>(chars[i]);
+	}
+}
+
 Local<String> createV8String(JNIEnv *env, Isolate *isolate, jstring &string) {
-	const char* utfString = env -> GetStringUTFChars(string, NULL);
-	Local<String> result = String::NewFromUtf8(isolate, utfString);
-	env->ReleaseStringUTFChars(string, utfString);
+	int length = env->GetStringLength(string);
+	if ( length <= STRING_STACK_BUFFER_SIZE ) {
+		jchar chars[STRING_STACK_BUFFER_SIZE];
+		env->GetStringRegion(string, 0, length, chars);
+		if ( isOneByte(chars, length) ) {
+			uint8_t oneByteChars[STRING_STACK_BUFFER_SIZE];
+			narrow(chars, length, oneByteChars);
+			return String::NewFromOneByte(isolate, oneByteChars, String::kNormalString, length);
+		}
+		return String::NewFromTwoByte(isolate, reinterpret_cast<const uint16_t*>(chars), String::kNormalString, length);
+	}
+	// copy instead of pinning with GetStringCritical, creating the V8 string
+	// may trigger a GC whose callbacks call back into Java
+	jchar* chars = new jchar[length];
+	env->GetStringRegion(string, 0, length, chars);
+	Local<String> result;
+	if ( isOneByte(chars, length) ) {
+		// narrowing in place is safe, byte i is written after char i / 2 was read
+		uint8_t* oneByteChars = reinterpret_cast<uint8_t*>(chars);
+		narrow(chars, length, oneByteChars);
+		result = String::NewFromOneByte(isolate, oneByteChars, String::kNormalString, length);
+	} else {
+		result = String::NewFromTwoByte(isolate, reinterpret_cast<const uint16_t*>(chars), String::kNormalString, length);
+	}
+	delete[] chars;
+	return result;
+}
+
+unsigned int hashKey(const jchar* chars, int length) {
+	unsigned int hash = 2166136261u;
+	for (int i = 0; i < length; i++) {
+		hash = (hash ^ chars[i]) * 16777619u;
+	}
+	return hash;
+}
+
+Local<String> createV8Key(JNIEnv *env, Isolate *isolate, V8Runtime* runtime, jstring &key) {
+	int length = env->GetStringLength(key);
+	if ( length > KEY_CACHE_MAX_LENGTH ) {
+		return createV8String(env, isolate, key);
+	}
+	jchar chars[KEY_CACHE_MAX_LENGTH];
+	env->GetStringRegion(key, 0, length, chars);
+	if ( runtime->keyCache == NULL ) {
+		runtime->keyCache = new KeyCacheEntry[KEY_CACHE_SIZE];
+		for (int i = 0; i < KEY_CACHE_SIZE; i++) {
+			runtime->keyCache[i].length = -1;
+		}
+	}
+	KeyCacheEntry* entry = &runtime->keyCache[hashKey(chars, length) % KEY_CACHE_SIZE];
+	if ( entry->length == length && memcmp(entry->chars, chars, length * sizeof(jchar)) == 0 ) {
+		return Local<String>::New(isolate, entry->key);
+	}
+	Local<String> result;
+	if ( isOneByte(chars, length) ) {
+		uint8_t oneByteChars[KEY_CACHE_MAX_LENGTH];
+		narrow(chars, length, oneByteChars);
+		result = String::NewFromOneByte(isolate, oneByteChars, String::kInternalizedString, length);
+	} else {
+		result = String::NewFromTwoByte(isolate, reinterpret_cast<const uint16_t*>(chars), String::kInternalizedString, length);
+	}
+	entry->length = length;
+	memcpy(entry->chars, chars, length * sizeof(jchar));
+	entry->key.Reset(isolate, result);
+	return result;
+}
+
+void releaseKeyCache(V8Runtime* runtime) {
+	if ( runtime->keyCache == NULL ) {
+		return;
+	}
+	for (int i = 0; i < KEY_CACHE_SIZE; i++) {
+		runtime->keyCache[i].key.Reset();
+	}
+	delete[] runtime->keyCache;
+	runtime->keyCache = NULL;
+}
+
+jstring createJavaString(JNIEnv *env, Handle<String> string) {
+	int length = string->Length();
+	if ( length <= STRING_STACK_BUFFER_SIZE ) {
+		uint16_t chars[STRING_STACK_BUFFER_SIZE];
+		string->Write(chars, 0, length, String::NO_NULL_TERMINATION);
+		return env->NewString(reinterpret_cast<const jchar*>(chars), length);
+	}
+	uint16_t* chars = new uint16_t[length];
+	string->Write(chars, 0, length, String::NO_NULL_TERMINATION);
+	jstring result = env->NewString(reinterpret_cast<const jchar*>(chars), length);
+	delete[] chars;
 	return result;
 }
 
 Handle<Value> getValueWithKey(JNIEnv* env, Isolate* isolate, jint &v8RuntimeHandle, jint &objectHandle, jstring &key) {
-		Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
-		Local<String> v8Key = createV8String(env, isolate, key);
-		return object->Get(v8Key);
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, Handle<Value>());
+	Local<String> v8Key = createV8Key(env, isolate, runtime, key);
+	return object->Get(v8Key);
 }
 
 void addValueWithKey(JNIEnv* env, Isolate* isolate, jint &v8RuntimeHandle, jint &objectHandle, jstring &key, Handle<Value> value) {
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
-	const char* utfString_key = env -> GetStringUTFChars(key, NULL);
-	Local<String> v8Key = String::NewFromUtf8(isolate, utfString_key);
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, );
+	Local<String> v8Key = createV8Key(env, isolate, runtime, key);
 	object->Set(v8Key,  value);
-	env->ReleaseStringUTFChars(key, utfString_key);
 }
 
 void getJNIEnv(JNIEnv*& env) {
@@ -168,133 +450,497 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1processDebugMessages
 	Debug::ProcessDebugMessages();
 }
 
+/*
+ * V8 offers no near heap limit callback in this version, so the heap usage
+ * is checked after every garbage collection instead. Terminating is left to
+ * V8#nearHeapLimit, which only terminates a running call and has it
+ * cancelled when the call returns. After each notification the threshold
+ * moves up by half of the remaining heap, and it drops back to the
+ * configured one once the heap shrank below that again.
+ */
+void heapLimitCallback(Isolate* isolate, GCType, GCCallbackFlags) {
+	V8Runtime* runtime = static_cast<V8Runtime*>(isolate->GetData(0));
+	if ( runtime == NULL || runtime->heapLimitThreshold == 0 ) {
+		return;
+	}
+	HeapStatistics statistics;
+	isolate->GetHeapStatistics(&statistics);
+	size_t used = statistics.used_heap_size();
+	size_t limit = statistics.heap_size_limit();
+	if ( used < runtime->initialHeapLimitThreshold ) {
+		runtime->heapLimitThreshold = runtime->initialHeapLimitThreshold;
+		return;
+	}
+	if ( used < runtime->heapLimitThreshold ) {
+		return;
+	}
+	runtime->heapLimitThreshold = used + (limit > used ? (limit - used) / 2 : 0);
+	JNIEnv* env;
+	getJNIEnv(env);
+	env->CallBooleanMethod(runtime->v8, nearHeapLimitMethod, (jlong) used, (jlong) limit);
+	if ( env->ExceptionCheck() ) {
+		env->ExceptionClear();
+	}
+}
+
+int64_t currentTimeMicros() {
+	struct timeval time;
+	gettimeofday(&time, NULL);
+	return (int64_t) time.tv_sec * 1000000 + time.tv_usec;
+}
+
+void gcPrologueCallback(Isolate* isolate, GCType type, GCCallbackFlags) {
+	V8Runtime* runtime = static_cast<V8Runtime*>(isolate->GetData(0));
+	runtime->gcStartMicros = currentTimeMicros();
+	JNIEnv* env;
+	getJNIEnv(env);
+	env->CallVoidMethod(runtime->v8, gcStartedMethod, (jint) type);
+	if ( env->ExceptionCheck() ) {
+		env->ExceptionClear();
+	}
+}
+
+void gcEpilogueCallback(Isolate* isolate, GCType type, GCCallbackFlags) {
+	V8Runtime* runtime = static_cast<V8Runtime*>(isolate->GetData(0));
+	jlong pause = currentTimeMicros() - runtime->gcStartMicros;
+	JNIEnv* env;
+	getJNIEnv(env);
+	env->CallVoidMethod(runtime->v8, gcFinishedMethod, (jint) type, pause);
+	if ( env->ExceptionCheck() ) {
+		env->ExceptionClear();
+	}
+}
+
 static void jsWindowObjectAccessor(Local<String> property,
 		const PropertyCallbackInfo<Value>& info) {
 	info.GetReturnValue().Set(info.GetIsolate()->GetCurrentContext()->Global());
 }
 
+/*
+ * Stores the JVM and the global class references once, when the library is
+ * loaded, so runtimes can be created concurrently from any thread.
+ */
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM* vm, void*) {
+	JNIEnv* env;
+	if ( vm->GetEnv((void **) &env, JNI_VERSION_1_6) != JNI_OK ) {
+		return JNI_ERR;
+	}
+	jvm = vm;
+	v8cls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8"));
+	v8ObjectCls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8Object"));
+	v8ArrayCls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8Array"));
+	stringCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/String"));
+	integerCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/Integer"));
+	doubleCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/Double"));
+	booleanCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/Boolean"));
+	v8ResultsUndefinedCls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8ResultUndefined"));
+	v8ScriptCompilationCls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8ScriptCompilationException"));
+	v8ScriptExecutionException = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8ScriptExecutionException"));
+	v8RuntimeException = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8RuntimeException"));
+	v8ScriptTerminatedException = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8ScriptTerminatedException"));
+	errorCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/Error"));
+	nearHeapLimitMethod = env->GetMethodID(v8cls, "nearHeapLimit", "(JJ)Z");
+	gcStartedMethod = env->GetMethodID(v8cls, "gcStarted", "(I)V");
+	gcFinishedMethod = env->GetMethodID(v8cls, "gcFinished", "(IJ)V");
+	return JNI_VERSION_1_6;
+}
+
+// Scripts may replace JSON.stringify, toJson keeps using the original one.
+void captureJsonStringify(Isolate* isolate, V8Runtime* runtime, Handle<Context> context) {
+	Context::Scope context_scope(context);
+	Handle<Object> json = context->Global()->Get(String::NewFromUtf8(isolate, "JSON"))->ToObject();
+	Handle<Function> stringify = Handle<Function>::Cast(json->Get(String::NewFromUtf8(isolate, "stringify")));
+	runtime->jsonStringify.Reset(isolate, stringify);
+}
+
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1createIsolate
-  (JNIEnv *env, jobject v8, jint handle, jstring globalAlias) {
-	if (jvm == NULL ) {
-		// on first creation, store the JVM and a handle to V8.class
-		env->GetJavaVM(&jvm);
-		v8cls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8"));
-		v8ObjectCls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8Object"));
-		v8ArrayCls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8Array"));
-		stringCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/String"));
-		integerCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/Integer"));
-		doubleCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/Double"));
-		booleanCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/Boolean"));
-		v8ResultsUndefinedCls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8ResultUndefined"));
-		v8ScriptCompilationCls = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8ScriptCompilationException"));
-		v8ScriptExecutionException = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8ScriptExecutionException"));
-		v8RuntimeException = (jclass)env->NewGlobalRef((env)->FindClass("com/eclipsesource/v8/V8RuntimeException"));
-		errorCls = (jclass)env->NewGlobalRef((env)->FindClass("java/lang/Error"));
-	}
-	v8Isolates[handle] = new V8Runtime();
-	v8Isolates[handle]->isolate = Isolate::New();
-	v8Isolates[handle]->isolate_scope = new Isolate::Scope(v8Isolates[handle]->isolate);
-	v8Isolates[handle]->v8 = env->NewGlobalRef(v8);
-	HandleScope handle_scope(v8Isolates[handle]->isolate);
+  (JNIEnv *env, jobject v8, jint handle, jstring globalAlias, jint maxYoungSpaceSize, jint maxOldSpaceSize,
+		  jint maxExecutableSize, jint stackLimit, jint heapLimitThreshold) {
+	V8Runtime* runtime = new V8Runtime();
+	pthread_mutex_lock(&v8IsolatesLock);
+	v8Isolates.allocate(handle)->runtime = runtime;
+	pthread_mutex_unlock(&v8IsolatesLock);
+	runtime->isolate = Isolate::New();
+	runtime->isolate->SetData(0, runtime);
+	// microtasks are run from Java once the outermost call returns
+	V8::SetAutorunMicrotasks(runtime->isolate, false);
+	ResourceConstraints constraints;
+	if ( maxYoungSpaceSize > 0 ) {
+		constraints.set_max_young_space_size(maxYoungSpaceSize * MEGABYTE);
+	}
+	if ( maxOldSpaceSize > 0 ) {
+		constraints.set_max_old_space_size(maxOldSpaceSize * MEGABYTE);
+	}
+	if ( maxExecutableSize > 0 ) {
+		constraints.set_max_executable_size(maxExecutableSize * MEGABYTE);
+	}
+	if ( stackLimit > 0 ) {
+		// the stack grows downwards, so the limit is below the current position
+		uintptr_t stackPosition = reinterpret_cast<uintptr_t>(&constraints);
+		constraints.set_stack_limit(reinterpret_cast<uint32_t*>(stackPosition - stackLimit * KILOBYTE));
+	}
+	SetResourceConstraints(runtime->isolate, &constraints);
+	runtime->isolate_scope = new Isolate::Scope(runtime->isolate);
+	runtime->v8 = env->NewGlobalRef(v8);
+	HandleScope handle_scope(runtime->isolate);
 	Handle<ObjectTemplate> globalObject = ObjectTemplate::New();
+	runtime->globalTemplate_.Reset(runtime->isolate, globalObject);
 	if ( globalAlias == NULL ) {
-		Handle<Context> context = Context::New(v8Isolates[handle]->isolate, NULL, globalObject);
-		v8Isolates[handle]->context_.Reset(v8Isolates[handle]->isolate, context);
-		v8Isolates[handle]->objects[0] = new Persistent<Object>;
-		v8Isolates[handle]->objects[0]->Reset(v8Isolates[handle]->isolate, context->Global()->GetPrototype()->ToObject());
+		Handle<Context> context = Context::New(runtime->isolate, NULL, globalObject);
+		runtime->context_.Reset(runtime->isolate, context);
+		setObject(runtime, 0, context->Global()->GetPrototype()->ToObject());
 	} else {
-		Local<String> utfAlias = createV8String(env, v8Isolates[handle]->isolate, globalAlias);
+		Local<String> utfAlias = createV8String(env, runtime->isolate, globalAlias);
 		globalObject->SetAccessor(utfAlias, jsWindowObjectAccessor);
-		Handle<Context> context = Context::New(v8Isolates[handle]->isolate, NULL, globalObject);
-		v8Isolates[handle]->context_.Reset(v8Isolates[handle]->isolate, context);
-		v8Isolates[handle]->objects[0] = new Persistent<Object>;
-		v8Isolates[handle]->objects[0]->Reset(v8Isolates[handle]->isolate, context->Global()->GetPrototype()->ToObject());
+		Handle<Context> context = Context::New(runtime->isolate, NULL, globalObject);
+		runtime->context_.Reset(runtime->isolate, context);
+		setObject(runtime, 0, context->Global()->GetPrototype()->ToObject());
+	}
+	captureJsonStringify(runtime->isolate, runtime, Local<Context>::New(runtime->isolate, runtime->context_));
+	if ( heapLimitThreshold > 0 ) {
+		HeapStatistics statistics;
+		runtime->isolate->GetHeapStatistics(&statistics);
+		runtime->heapLimitThreshold = statistics.heap_size_limit() / 100 * heapLimitThreshold;
+		runtime->initialHeapLimitThreshold = runtime->heapLimitThreshold;
+		runtime->isolate->AddGCEpilogueCallback(heapLimitCallback);
 	}
 }
 
-void createPersistentContainer(V8Runtime* runtime, int handle) {
-	if ( runtime->objects.find(handle) == runtime->objects.end() ) {
-		runtime->objects[handle] = new Persistent<Object>;
+/*
+ * Memory held natively on behalf of Java, mostly outside of the V8 heap.
+ * Persistent handle and index entry sizes are estimates of what V8 and the
+ * standard library allocate per entry.
+ */
+void getNativeMemoryUsage(V8Runtime* runtime, int64_t usage[NATIVE_MEMORY_FIELDS]) {
+	usage[0] = runtime->objects.size();
+	usage[1] = runtime->objects.allocatedBytes() + (int64_t) runtime->objects.size() * PERSISTENT_HANDLE_SIZE;
+	usage[2] = runtime->methodDescriptors.size();
+	usage[3] = (int64_t) runtime->methodDescriptors.size() * sizeof(MethodDescriptor);
+	usage[4] = runtime->keyCache == NULL ? 0 : KEY_CACHE_SIZE * sizeof(KeyCacheEntry);
+	usage[5] = (int64_t) runtime->identities.size() * IDENTITY_ENTRY_SIZE;
+	usage[6] = runtime->externalBytes;
+	usage[7] = usage[1] + usage[3] + usage[4] + usage[5] + usage[6];
+	usage[8] = runtime->reportedExternalBytes;
+}
+
+/*
+ * Tells V8 about native memory held for this runtime, so that its GC
+ * heuristics account for it. Changes are reported in coarse steps to keep
+ * the per-handle overhead low.
+ */
+void reportExternalMemory(V8Runtime* runtime) {
+	int64_t usage[NATIVE_MEMORY_FIELDS];
+	getNativeMemoryUsage(runtime, usage);
+	int64_t delta = usage[7] - runtime->reportedExternalBytes;
+	if ( delta >= EXTERNAL_MEMORY_GRANULARITY || delta <= -EXTERNAL_MEMORY_GRANULARITY ) {
+		runtime->isolate->AdjustAmountOfExternalAllocatedMemory(delta);
+		runtime->reportedExternalBytes = usage[7];
 	}
 }
 
+void setObject(V8Runtime* runtime, int handle, Handle<Object> object) {
+	ObjectSlot* slot = runtime->objects.allocate(handle);
+	slot->collected = false;
+	slot->indexed = false;
+	slot->object.Reset(runtime->isolate, object);
+	reportExternalMemory(runtime);
+}
+
+void freeObject(V8Runtime* runtime, ObjectSlot* slot, int handle) {
+	if ( slot->indexed ) {
+		std::pair<std::multimap<int, int>::iterator, std::multimap<int, int>::iterator> range = runtime->identities.equal_range(slot->identityHash);
+		for ( std::multimap<int, int>::iterator it = range.first; it != range.second; ++it ) {
+			if ( it->second == handle ) {
+				runtime->identities.erase(it);
+				break;
+			}
+		}
+		slot->indexed = false;
+	}
+	slot->object.Reset();
+	runtime->objects.free(slot);
+	reportExternalMemory(runtime);
+}
+
+/*
+ * Returns the handle of a live, indexed slot that already holds the given
+ * object, or stores the object in resultHandle, indexes it by its identity
+ * hash and returns resultHandle.
+ */
+jint internObject(Isolate* isolate, V8Runtime* runtime, Handle<Object> object, int resultHandle) {
+	int hash = object->GetIdentityHash();
+	std::pair<std::multimap<int, int>::iterator, std::multimap<int, int>::iterator> range = runtime->identities.equal_range(hash);
+	for ( std::multimap<int, int>::iterator it = range.first; it != range.second; ++it ) {
+		ObjectSlot* slot = runtime->objects.find(it->second);
+		if ( slot != NULL && !slot->collected && Local<Object>::New(isolate, slot->object)->StrictEquals(object) ) {
+			return it->second;
+		}
+	}
+	setObject(runtime, resultHandle, object);
+	ObjectSlot* slot = runtime->objects.find(resultHandle);
+	slot->indexed = true;
+	slot->identityHash = hash;
+	runtime->identities.insert(std::make_pair(hash, resultHandle));
+	return resultHandle;
+}
+
+Handle<Object> getObject(JNIEnv* env, Isolate* isolate, V8Runtime* runtime, int handle) {
+	ObjectSlot* slot = runtime->objects.find(handle);
+	if ( slot == NULL ) {
+		throwV8RuntimeException(env, "Invalid object handle");
+		return Handle<Object>();
+	} else if ( slot->collected ) {
+		throwV8RuntimeException(env, "Object has been garbage collected");
+		return Handle<Object>();
+	}
+	return Local<Object>::New(isolate, slot->object);
+}
+
+void releaseObject(JNIEnv* env, jint v8RuntimeHandle, jint objectHandle) {
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	if ( runtime == NULL ) {
+		return;
+	}
+	ObjectSlot* slot = runtime->objects.find(objectHandle);
+	if ( slot == NULL ) {
+		return;
+	}
+	freeObject(runtime, slot, objectHandle);
+}
+
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1initNewV8Object
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
 	Local<Object> obj = Object::New(isolate);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], objectHandle);
-	v8Isolates[v8RuntimeHandle]->objects[objectHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, obj);
+	setObject(runtime, objectHandle, obj);
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1initNewV8Array
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
 	Local<Array> array = Array::New(isolate);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], arrayHandle);
-	v8Isolates[v8RuntimeHandle]->objects[arrayHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, array);
+	setObject(runtime, arrayHandle, array);
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1release
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
-	if ( v8Isolates.count(v8RuntimeHandle) == 0  ) {
-		return;
-	} else if ( v8Isolates[v8RuntimeHandle]->objects.find(objectHandle) == v8Isolates[v8RuntimeHandle]->objects.end() ) {
-		return;
-	}
-	Isolate* isolate = getIsolate(env, v8RuntimeHandle);
-	HandleScope handle_scope(isolate);
-	v8Isolates[v8RuntimeHandle]->objects[objectHandle]->Reset();
-	delete(v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
-	v8Isolates[v8RuntimeHandle]->objects.erase(objectHandle);
+	releaseObject(env, v8RuntimeHandle, objectHandle);
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1releaseArray
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle) {
-	if ( v8Isolates.count(v8RuntimeHandle) == 0 ) {
+	releaseObject(env, v8RuntimeHandle, arrayHandle);
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1releaseHandles
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jintArray handles, jint count) {
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	if ( runtime == NULL ) {
+		return;
+	}
+	jint* elements = env->GetIntArrayElements(handles, NULL);
+	for ( int i = 0; i < count; i++ ) {
+		ObjectSlot* slot = runtime->objects.find(elements[i]);
+		if ( slot != NULL ) {
+			freeObject(runtime, slot, elements[i]);
+		}
+	}
+	env->ReleaseIntArrayElements(handles, elements, JNI_ABORT);
+}
+
+JNIEXPORT jlong JNICALL Java_com_eclipsesource_v8_V8__1adjustExternalMemory
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jlong delta) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
+	runtime->externalBytes += delta;
+	reportExternalMemory(runtime);
+	return runtime->externalBytes;
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1getNativeMemoryUsage
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jlongArray result) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	int64_t usage[NATIVE_MEMORY_FIELDS];
+	getNativeMemoryUsage(runtime, usage);
+	jlong values[NATIVE_MEMORY_FIELDS];
+	for ( int i = 0; i < NATIVE_MEMORY_FIELDS; i++ ) {
+		values[i] = usage[i];
+	}
+	env->SetLongArrayRegion(result, 0, NATIVE_MEMORY_FIELDS, values);
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1getHeapStatistics
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jlongArray result) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	HeapStatistics statistics;
+	isolate->GetHeapStatistics(&statistics);
+	jlong values[6];
+	values[0] = statistics.total_heap_size();
+	values[1] = statistics.total_heap_size_executable();
+	values[2] = statistics.total_physical_size();
+	values[3] = statistics.used_heap_size();
+	values[4] = statistics.heap_size_limit();
+	values[5] = isolate->AdjustAmountOfExternalAllocatedMemory(0);
+	env->SetLongArrayRegion(result, 0, 6, values);
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1setGCCallbacks
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jboolean enabled) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	if ( enabled ) {
+		isolate->AddGCPrologueCallback(gcPrologueCallback);
+		isolate->AddGCEpilogueCallback(gcEpilogueCallback);
+	} else {
+		isolate->RemoveGCPrologueCallback(gcPrologueCallback);
+		isolate->RemoveGCEpilogueCallback(gcEpilogueCallback);
+	}
+}
+
+/*
+ * Additional contexts share the security token of the runtime's context, so
+ * Java can reach into their globals, and are represented by their global
+ * object, from which the context is found again when it is activated.
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1createContext
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint resultHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	Local<ObjectTemplate> globalObject = Local<ObjectTemplate>::New(isolate, runtime->globalTemplate_);
+	Handle<Context> created = Context::New(isolate, NULL, globalObject);
+	created->SetSecurityToken(context->GetSecurityToken());
+	setObject(runtime, resultHandle, created->Global()->GetPrototype()->ToObject());
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1setContext
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint globalHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	Handle<Object> global = getObject(env, isolate, runtime, globalHandle);
+	if ( env->ExceptionCheck() ) {
 		return;
-	} else if ( v8Isolates[v8RuntimeHandle]->objects.find(arrayHandle) == v8Isolates[v8RuntimeHandle]->objects.end() ) {
+	}
+	runtime->context_.Reset(isolate, global->CreationContext());
+}
+
+void resetObjectSlot(ObjectSlot* slot) {
+	slot->object.Reset();
+	slot->collected = false;
+	slot->indexed = false;
+}
+
+/*
+ * Drops every object handle, callback and cached key and replaces the
+ * context with a fresh one created from the same global template. The
+ * isolate, and with it the heap and the compiled code, stays in place.
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1resetRuntime
+  (JNIEnv *env, jobject, jint v8RuntimeHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	runtime->objects.freeAll(resetObjectSlot);
+	runtime->identities.clear();
+	vector<char>().swap(runtime->pendingSerialized);
+	// Functions of the old context can outlive it, for example in a microtask
+	// queued by a promise, so their descriptors are only retired here and
+	// freed with the runtime.
+	for ( size_t i = 0; i < runtime->methodDescriptors.size(); i++ ) {
+		runtime->methodDescriptors[i]->retired = true;
+		runtime->retiredDescriptors.push_back(runtime->methodDescriptors[i]);
+	}
+	runtime->methodDescriptors.clear();
+	releaseKeyCache(runtime);
+	Local<ObjectTemplate> globalObject = Local<ObjectTemplate>::New(isolate, runtime->globalTemplate_);
+	Handle<Context> created = Context::New(isolate, NULL, globalObject);
+	runtime->context_.Reset(isolate, created);
+	setObject(runtime, 0, created->Global()->GetPrototype()->ToObject());
+	captureJsonStringify(isolate, runtime, created);
+	reportExternalMemory(runtime);
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1runMicrotasks
+  (JNIEnv *env, jobject, jint v8RuntimeHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	V8::RunMicrotasks(isolate);
+}
+
+JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1idleNotification
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint idleTimeInMs) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, false);
+	return V8::IdleNotification(idleTimeInMs);
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1lowMemoryNotification
+  (JNIEnv *env, jobject, jint v8RuntimeHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	V8::LowMemoryNotification();
+}
+
+// Called from the watchdog thread while the runtime thread is inside V8, so
+// only the isolate pointer is touched; TerminateExecution is thread safe.
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1terminateExecution
+  (JNIEnv *, jobject, jint v8RuntimeHandle) {
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	if ( runtime == NULL ) {
 		return;
 	}
+	V8::TerminateExecution(runtime->isolate);
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1cancelTerminateExecution
+  (JNIEnv *env, jobject, jint v8RuntimeHandle) {
 	Isolate* isolate = getIsolate(env, v8RuntimeHandle);
-	HandleScope handle_scope(isolate);
-	v8Isolates[v8RuntimeHandle]->objects[arrayHandle]->Reset();
-	delete(v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
-	v8Isolates[v8RuntimeHandle]->objects.erase(arrayHandle);
+	if ( isolate == NULL ) {
+		return;
+	}
+	V8::CancelTerminateExecution(isolate);
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1releaseRuntime
   (JNIEnv *env, jobject, jint v8RuntimeHandle) {
-	if ( v8Isolates.count(v8RuntimeHandle) == 0 ) {
+	RuntimeSlot* slot = v8Isolates.find(v8RuntimeHandle);
+	if ( slot == NULL ) {
 		return;
 	}
-	Isolate* isolate = getIsolate(env, v8RuntimeHandle);
+	V8Runtime* runtime = slot->runtime;
+	Isolate* isolate = runtime->isolate;
 	HandleScope handle_scope(isolate);
-	v8Isolates[v8RuntimeHandle]->context_.Reset();
-	delete(v8Isolates[v8RuntimeHandle]->isolate_scope);
-	v8Isolates[v8RuntimeHandle]->isolate->Dispose();
-	env->DeleteGlobalRef(v8Isolates[v8RuntimeHandle]->v8);
-	delete(v8Isolates[v8RuntimeHandle]);
-	v8Isolates.erase(v8RuntimeHandle);
+	releaseKeyCache(runtime);
+	runtime->jsonStringify.Reset();
+	runtime->context_.Reset();
+	runtime->globalTemplate_.Reset();
+	delete(runtime->isolate_scope);
+	runtime->isolate->Dispose();
+	for ( size_t i = 0; i < runtime->methodDescriptors.size(); i++ ) {
+		delete(runtime->methodDescriptors[i]);
+	}
+	for ( size_t i = 0; i < runtime->retiredDescriptors.size(); i++ ) {
+		delete(runtime->retiredDescriptors[i]);
+	}
+	env->DeleteGlobalRef(runtime->v8);
+	delete(runtime);
+	pthread_mutex_lock(&v8IsolatesLock);
+	slot->runtime = NULL;
+	v8Isolates.free(slot);
+	pthread_mutex_unlock(&v8IsolatesLock);
 }
 
 JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1contains
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jstring key) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, false);
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
-	Local<String> v8Key = createV8String(env, isolate, key);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, false);
+	Local<String> v8Key = createV8Key(env, isolate, runtime, key);
 	return object->Has( v8Key );
 }
 
 JNIEXPORT jobjectArray JNICALL Java_com_eclipsesource_v8_V8__1getKeys
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, NULL);
 	Local<Array> properties = object->GetOwnPropertyNames();
 	int size = properties->Length();
 	jobjectArray keys = (env)->NewObjectArray(size, stringCls, NULL);
 	for ( int i = 0; i < size; i++ ) {
-		jobject key = (env)->NewStringUTF( *String::Utf8Value( properties->Get(i)->ToString() ) );
+		jobject key = createJavaString(env, properties->Get(i)->ToString());
 		(env)->SetObjectArrayElement(keys, i, key);
+		(env)->DeleteLocalRef(key);
 	}
 	return keys;
 }
@@ -339,6 +985,52 @@ bool runScript( Isolate* isolate, JNIEnv *env, Local<Script> *script, TryCatch*
 	return true;
 }
 
+/*
+ * Runs a bootstrap script of a snapshot. Without compile data the script is
+ * compiled with kProduceDataToCache and the data V8 produced is returned, so
+ * that later runtimes can skip parsing; with compile data NULL is returned.
+ */
+JNIEXPORT jbyteArray JNICALL Java_com_eclipsesource_v8_V8__1executeSnapshotScript
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jobject sourceBuffer, jint sourceOffset, jint sourceLength, jstring jscriptName,
+		  jobject compileDataBuffer, jint compileDataOffset, jint compileDataLength) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
+	char* sourceData = static_cast<char*>(env->GetDirectBufferAddress(sourceBuffer));
+	uint8_t* compileData = NULL;
+	if ( compileDataBuffer != NULL ) {
+		compileData = static_cast<uint8_t*>(env->GetDirectBufferAddress(compileDataBuffer));
+	}
+	if ( sourceData == NULL || (compileDataBuffer != NULL && compileData == NULL) ) {
+		throwV8RuntimeException(env, "Buffer is not a direct buffer");
+		return NULL;
+	}
+	Local<String> sourceString = String::NewFromUtf8(isolate, sourceData + sourceOffset, String::kNormalString, sourceLength);
+	ScriptCompiler::CachedData* cachedData = NULL;
+	if ( compileData != NULL && compileDataLength > 0 ) {
+		cachedData = new ScriptCompiler::CachedData(compileData + compileDataOffset, compileDataLength);
+	}
+	ScriptOrigin* scriptOrigin = createScriptOrigin(env, isolate, jscriptName);
+	// the source takes ownership of the cached data, but not of its bytes
+	ScriptCompiler::Source source(sourceString, *scriptOrigin, cachedData);
+	delete(scriptOrigin);
+	TryCatch tryCatch;
+	Local<Script> script = ScriptCompiler::Compile(isolate, &source,
+			cachedData == NULL ? ScriptCompiler::kProduceDataToCache : ScriptCompiler::kNoCompileOptions);
+	if ( tryCatch.HasCaught() ) {
+		throwParseException(env, isolate, &tryCatch);
+		return NULL;
+	}
+	if ( !runScript(isolate, env, &script, &tryCatch) ) {
+		return NULL;
+	}
+	const ScriptCompiler::CachedData* produced = source.GetCachedData();
+	if ( cachedData != NULL || produced == NULL ) {
+		return NULL;
+	}
+	jbyteArray result = env->NewByteArray(produced->length);
+	env->SetByteArrayRegion(result, 0, produced->length, reinterpret_cast<const jbyte*>(produced->data));
+	return result;
+}
+
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1executeVoidScript
   (JNIEnv * env, jobject v8, jint v8RuntimeHandle, jstring jjstring, jstring jscriptName = NULL, jint jlineNumber = 0) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
@@ -388,8 +1080,7 @@ JNIEXPORT jstring JNICALL Java_com_eclipsesource_v8_V8__1executeStringScript
 	if ( !runScript(isolate, env, &script, &tryCatch, result ) )
 		return NULL;
 	ASSERT_IS_STRING(result);
-	String::Utf8Value utf(result->ToString());
-	return env->NewStringUTF(*utf);
+	return createJavaString(env, result->ToString());
 }
 
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1executeIntScript
@@ -406,6 +1097,16 @@ JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1executeIntScript
 	return result->Int32Value();
 }
 
+jobject createJavaObject(JNIEnv *env, jobject &v8, jint &v8RuntimeHandle, Handle<Value> &result) {
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	jclass cls = result->IsArray() ? v8ArrayCls : v8ObjectCls;
+	jmethodID constructor = env->GetMethodID(cls, "<init>", "(Lcom/eclipsesource/v8/V8;)V");
+	jobject objectResult = env->NewObject(cls, constructor, v8);
+	int resultHandle = getHandle( env, objectResult );
+	setObject(runtime, resultHandle, result->ToObject());
+	return objectResult;
+}
+
 JNIEXPORT jobject JNICALL Java_com_eclipsesource_v8_V8__1executeScript
   (JNIEnv *env, jobject v8, jint v8RuntimeHandle, jstring jjstring, jstring jscriptName = NULL, jint jlineNumber = 0) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
@@ -426,20 +1127,9 @@ JNIEXPORT jobject JNICALL Java_com_eclipsesource_v8_V8__1executeScript
 		jmethodID constructor = env->GetMethodID(booleanCls, "<init>", "(Z)V");
 		return env->NewObject(booleanCls, constructor, result->BooleanValue());
 	} else if ( result->IsString() ) {
-		String::Utf8Value utf(result->ToString());
-		return env->NewStringUTF(*utf);
-	} else if ( result->IsArray() ) {
-		jmethodID constructor = env->GetMethodID(v8ArrayCls, "<init>", "(Lcom/eclipsesource/v8/V8;)V");
-		jobject objectResult = env->NewObject(v8ArrayCls, constructor, v8);
-		int resultHandle = getHandle( env, objectResult );
-		v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, result->ToObject());
-		return objectResult;
+		return createJavaString(env, result->ToString());
 	} else if ( result->IsObject() ) {
-		jmethodID constructor = env->GetMethodID(v8ObjectCls, "<init>", "(Lcom/eclipsesource/v8/V8;)V");
-		jobject objectResult = env->NewObject(v8ObjectCls, constructor, v8);
-		int resultHandle = getHandle( env, objectResult );
-		v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, result->ToObject());
-		return objectResult;
+		return createJavaObject(env, v8, v8RuntimeHandle, result);
 	}
 	return NULL;
 }
@@ -453,8 +1143,7 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1executeObjectScript
 	if ( !compileScript(isolate, jjstring, env, jscriptName, jlineNumber, script, &tryCatch) ) { return; }
 	if ( !runScript(isolate, env, &script, &tryCatch, result ) ) { return; }
 	ASSERT_IS_OBJECT(result);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], resultHandle);
-	v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, result->ToObject());
+	setObject(runtime, resultHandle, result->ToObject());
 	return;
 }
 
@@ -469,18 +1158,20 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1executeArrayScript
 	if ( !runScript(isolate, env, &script, &tryCatch, result ) )
 		return;
 	ASSERT_IS_ARRAY(result);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], resultHandle);
-	v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, result->ToObject());
+	setObject(runtime, resultHandle, result->ToObject());
 	return;
 }
 
 bool invokeFunction(JNIEnv *env, Isolate* isolate, jint &v8RuntimeHandle, jint &objectHandle, jstring &jfunctionName, jint &parameterHandle, Handle<Value> &result) {
-	Local<String> functionName = createV8String(env, isolate, jfunctionName);
-	Handle<Object> parentObject = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	Local<String> functionName = createV8Key(env, isolate, runtime, jfunctionName);
+	Handle<Object> parentObject = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(parentObject, false);
 	int size = 0;
 	Handle<Value>* args = NULL;
 	if ( parameterHandle >= 0 ) {
-		Handle<Object> parameters = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[parameterHandle]);
+		Handle<Object> parameters = getObject(env, isolate, runtime, parameterHandle);
+		ASSERT_OBJECT_VALID(parameters, false);
 		size = Array::Cast(*parameters)->Length();
 		args = new Handle<Value> [size];
 		for (int i = 0; i < size; i++) {
@@ -508,8 +1199,7 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1executeArrayFunction
 	if (!invokeFunction(env, isolate, v8RuntimeHandle, objectHandle, jfunctionName, parameterHandle, result) )
 		return;
 	ASSERT_IS_ARRAY(result);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], resultHandle);
-	v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, result->ToObject());
+	setObject(runtime, resultHandle, result->ToObject());
 	return;
 }
 
@@ -520,8 +1210,7 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1executeObjectFunction
 	if (!invokeFunction(env, isolate, v8RuntimeHandle, objectHandle, jfunctionName, parameterHandle, result) )
 		return;
 	ASSERT_IS_OBJECT(result);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], resultHandle);
-	v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, result->ToObject());
+	setObject(runtime, resultHandle, result->ToObject());
 	return;
 }
 
@@ -562,8 +1251,7 @@ JNIEXPORT jstring JNICALL Java_com_eclipsesource_v8_V8__1executeStringFunction
 	if (!invokeFunction(env, isolate, v8RuntimeHandle, objectHandle, jfunctionName, parameterHandle, result) )
 		return NULL;
 	ASSERT_IS_STRING(result);
-	String::Utf8Value utf(result->ToString());
-	return env->NewStringUTF(*utf);
+	return createJavaString(env, result->ToString());
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1executeVoidFunction
@@ -607,7 +1295,8 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1add__IILjava_lang_String_2
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addObject
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jstring key, jint valueHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Value> value = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[valueHandle]);
+	Handle<Value> value = getObject(env, isolate, runtime, valueHandle);
+	ASSERT_OBJECT_VALID(value, );
 	addValueWithKey(env, isolate, v8RuntimeHandle, objectHandle, key, value);
 }
 
@@ -616,9 +1305,19 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1getObject
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
 	Handle<Value> v8Value = getValueWithKey(env, isolate, v8RuntimeHandle, objectHandle, key);
 	ASSERT_IS_OBJECT(v8Value);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], resultHandle);
 	Handle<Object> obj = v8Value->ToObject();
-	v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, obj);
+	setObject(runtime, resultHandle, obj);
+}
+
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getObjectIdentity
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jstring key, jint resultHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
+	Handle<Value> v8Value = getValueWithKey(env, isolate, v8RuntimeHandle, objectHandle, key);
+	if (v8Value.IsEmpty() || v8Value->IsUndefined() || !v8Value->IsObject()) {
+		throwResultUndefinedException(env, "");
+		return 0;
+	}
+	return internObject(isolate, runtime, v8Value->ToObject(), resultHandle);
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1getArray
@@ -626,8 +1325,7 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1getArray
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
 	Handle<Value> v8Value = getValueWithKey(env, isolate, v8RuntimeHandle, objectHandle, key);
 	ASSERT_IS_ARRAY(v8Value);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], resultHandle);
-	v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, v8Value->ToObject());
+	setObject(runtime, resultHandle, v8Value->ToObject());
 }
 
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getInteger
@@ -651,8 +1349,7 @@ JNIEXPORT jstring JNICALL Java_com_eclipsesource_v8_V8__1getString
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
 	Handle<Value> v8Value = getValueWithKey(env, isolate, v8RuntimeHandle, objectHandle, key);
 	ASSERT_IS_STRING(v8Value);
-	String::Utf8Value utf(v8Value->ToString());
-	return env->NewStringUTF(*utf);
+	return createJavaString(env, v8Value->ToString());
 }
 
 JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1getBoolean
@@ -693,7 +1390,8 @@ bool isObject(int type1, int type2) {
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getArrayType
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	int length = Array::Cast(*array)->Length();
 	int arrayType = com_eclipsesource_v8_V8_UNDEFINED;
 	for (int index = 0; index < length; index++) {
@@ -718,14 +1416,16 @@ JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getArrayType
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetSize
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	return Array::Cast(*array)->Length();
 }
 
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetInteger
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint index) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	Handle<Value> v8Value = array->Get(index);
 	ASSERT_IS_NUMBER(v8Value);
 	return v8Value->Int32Value();
@@ -768,8 +1468,9 @@ int fillStringArray(JNIEnv *env, Handle<Object> &array, int &start, int &length,
 	for (int i = start; i < start+length; i++) {
 		Handle<Value> v8Value = array->Get(i);
 		ASSERT_IS_STRING(v8Value);
-		String::Utf8Value utf(v8Value->ToString());
-		env->SetObjectArrayElement(result, i-start, env->NewStringUTF(*utf));
+		jstring string = createJavaString(env, v8Value->ToString());
+		env->SetObjectArrayElement(result, i-start, string);
+		env->DeleteLocalRef(string);
 	}
 	return length;
 }
@@ -777,14 +1478,16 @@ int fillStringArray(JNIEnv *env, Handle<Object> &array, int &start, int &length,
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetInts__IIII_3I
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length, jintArray result) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	return fillIntArray(env, array, start, length, result);
 }
 
 JNIEXPORT jintArray JNICALL Java_com_eclipsesource_v8_V8__1arrayGetInts__IIII
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, NULL);
 	jintArray result = env->NewIntArray(length);
 	fillIntArray(env, array, start, length, result);
 	return result;
@@ -793,14 +1496,16 @@ JNIEXPORT jintArray JNICALL Java_com_eclipsesource_v8_V8__1arrayGetInts__IIII
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetDoubles__IIII_3D
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length, jdoubleArray result) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	return fillDoubleArray(env, array, start, length, result);
 }
 
 JNIEXPORT jdoubleArray JNICALL Java_com_eclipsesource_v8_V8__1arrayGetDoubles__IIII
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, NULL);
 	jdoubleArray result = env->NewDoubleArray(length);
 	fillDoubleArray(env, array, start, length, result);
 	return result;
@@ -809,14 +1514,16 @@ JNIEXPORT jdoubleArray JNICALL Java_com_eclipsesource_v8_V8__1arrayGetDoubles__I
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetBooleans__IIII_3Z
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length, jbooleanArray result) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	return fillBooleanArray(env, array, start, length, result);
 }
 
 JNIEXPORT jbooleanArray JNICALL Java_com_eclipsesource_v8_V8__1arrayGetBooleans__IIII
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, NULL);
 	jbooleanArray result = env->NewBooleanArray(length);
 	fillBooleanArray(env, array, start, length, result);
 	return result;
@@ -825,23 +1532,140 @@ JNIEXPORT jbooleanArray JNICALL Java_com_eclipsesource_v8_V8__1arrayGetBooleans_
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetStrings__IIII_3Ljava_lang_String_2
   (JNIEnv * env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length, jobjectArray result) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	return fillStringArray(env, array, start, length, result);
 }
 
 JNIEXPORT jobjectArray JNICALL Java_com_eclipsesource_v8_V8__1arrayGetStrings__IIII
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, NULL);
 	jobjectArray result = env->NewObjectArray(length, stringCls, NULL);
 	fillStringArray(env, array, start, length, result);
 	return result;
 }
 
+bool isColumnValue(Handle<Value> &v8Value, int type) {
+	if ( v8Value.IsEmpty() || v8Value->IsUndefined() ) {
+		return false;
+	}
+	switch (type) {
+		case com_eclipsesource_v8_V8_INTEGER:
+		case com_eclipsesource_v8_V8_DOUBLE:
+			return v8Value->IsNumber();
+		case com_eclipsesource_v8_V8_BOOLEAN:
+			return v8Value->IsBoolean();
+		case com_eclipsesource_v8_V8_STRING:
+			return v8Value->IsString();
+	}
+	return false;
+}
+
+JNIEXPORT jobjectArray JNICALL Java_com_eclipsesource_v8_V8__1arrayExtractColumns
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jobjectArray jkeys, jintArray jtypes) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, NULL);
+	int length = Array::Cast(*array)->Length();
+	int columns = env->GetArrayLength(jkeys);
+	jint* types = env->GetIntArrayElements(jtypes, NULL);
+	Handle<String>* keys = new Handle<String>[columns];
+	jobjectArray result = env->NewObjectArray(columns, env->FindClass("java/lang/Object"), NULL);
+	jint** intColumns = new jint*[columns];
+	jdouble** doubleColumns = new jdouble*[columns];
+	jboolean** booleanColumns = new jboolean*[columns];
+	for (int j = 0; j < columns; j++) {
+		jstring jkey = (jstring) env->GetObjectArrayElement(jkeys, j);
+		keys[j] = createV8Key(env, isolate, runtime, jkey);
+		env->DeleteLocalRef(jkey);
+		intColumns[j] = NULL;
+		doubleColumns[j] = NULL;
+		booleanColumns[j] = NULL;
+		jobject column = NULL;
+		if ( types[j] == com_eclipsesource_v8_V8_INTEGER ) {
+			intColumns[j] = new jint[length];
+			column = env->NewIntArray(length);
+		} else if ( types[j] == com_eclipsesource_v8_V8_DOUBLE ) {
+			doubleColumns[j] = new jdouble[length];
+			column = env->NewDoubleArray(length);
+		} else if ( types[j] == com_eclipsesource_v8_V8_BOOLEAN ) {
+			booleanColumns[j] = new jboolean[length];
+			column = env->NewBooleanArray(length);
+		} else {
+			column = env->NewObjectArray(length, stringCls, NULL);
+		}
+		env->SetObjectArrayElement(result, j, column);
+		env->DeleteLocalRef(column);
+	}
+	bool failed = false;
+	for (int i = 0; i < length && !failed; i++) {
+		HandleScope row_scope(isolate);
+		Handle<Value> element = array->Get(i);
+		if ( element.IsEmpty() || !element->IsObject() ) {
+			failed = true;
+			break;
+		}
+		Handle<Object> row = element->ToObject();
+		for (int j = 0; j < columns; j++) {
+			Handle<Value> v8Value = row->Get(keys[j]);
+			if ( !isColumnValue(v8Value, types[j]) ) {
+				failed = true;
+				break;
+			}
+			if ( intColumns[j] != NULL ) {
+				intColumns[j][i] = v8Value->Int32Value();
+			} else if ( doubleColumns[j] != NULL ) {
+				doubleColumns[j][i] = v8Value->NumberValue();
+			} else if ( booleanColumns[j] != NULL ) {
+				booleanColumns[j][i] = v8Value->BooleanValue();
+			} else {
+				jobjectArray column = (jobjectArray) env->GetObjectArrayElement(result, j);
+				jstring string = createJavaString(env, v8Value->ToString());
+				env->SetObjectArrayElement(column, i, string);
+				env->DeleteLocalRef(string);
+				env->DeleteLocalRef(column);
+			}
+		}
+	}
+	for (int j = 0; j < columns; j++) {
+		jobject column = env->GetObjectArrayElement(result, j);
+		if ( intColumns[j] != NULL ) {
+			if ( !failed ) {
+				env->SetIntArrayRegion((jintArray) column, 0, length, intColumns[j]);
+			}
+			delete[] intColumns[j];
+		} else if ( doubleColumns[j] != NULL ) {
+			if ( !failed ) {
+				env->SetDoubleArrayRegion((jdoubleArray) column, 0, length, doubleColumns[j]);
+			}
+			delete[] doubleColumns[j];
+		} else if ( booleanColumns[j] != NULL ) {
+			if ( !failed ) {
+				env->SetBooleanArrayRegion((jbooleanArray) column, 0, length, booleanColumns[j]);
+			}
+			delete[] booleanColumns[j];
+		}
+		env->DeleteLocalRef(column);
+	}
+	delete[] intColumns;
+	delete[] doubleColumns;
+	delete[] booleanColumns;
+	delete[] keys;
+	env->ReleaseIntArrayElements(jtypes, types, JNI_ABORT);
+	if ( failed ) {
+		throwResultUndefinedException(env, "");
+		return NULL;
+	}
+	return result;
+}
+
 JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1arrayGetBoolean
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint index) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, false);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, false);
 	Handle<Value> v8Value = array->Get(index);
 	ASSERT_IS_BOOLEAN(v8Value);
 	return v8Value->BooleanValue();
@@ -850,7 +1674,8 @@ JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1arrayGetBoolean
 JNIEXPORT jdouble JNICALL Java_com_eclipsesource_v8_V8__1arrayGetDouble
  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint index) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	Handle<Value> v8Value = array->Get(index);
 	ASSERT_IS_NUMBER(v8Value);
 	return v8Value->NumberValue();
@@ -859,38 +1684,52 @@ JNIEXPORT jdouble JNICALL Java_com_eclipsesource_v8_V8__1arrayGetDouble
 JNIEXPORT jstring JNICALL Java_com_eclipsesource_v8_V8__1arrayGetString
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint index) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, NULL);
 	Handle<Value> v8Value = array->Get(index);
 	ASSERT_IS_STRING(v8Value);
-	String::Utf8Value utf(v8Value->ToString());
-	return env->NewStringUTF(*utf);
+	return createJavaString(env, v8Value->ToString());
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1arrayGetObject
  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint index, jint resultHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, );
 	Handle<Value> v8Value = array->Get(index);
 	ASSERT_IS_OBJECT(v8Value);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], resultHandle);
 	Handle<Object> obj = v8Value->ToObject();
-	v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, obj);
+	setObject(runtime, resultHandle, obj);
+}
+
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetObjectIdentity
+ (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint index, jint resultHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
+	Handle<Value> v8Value = array->Get(index);
+	if (v8Value.IsEmpty() || v8Value->IsUndefined() || !v8Value->IsObject()) {
+		throwResultUndefinedException(env, "");
+		return 0;
+	}
+	return internObject(isolate, runtime, v8Value->ToObject(), resultHandle);
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1arrayGetArray
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint index, jint resultHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, );
 	Handle<Value> v8Value = array->Get(index);
 	ASSERT_IS_ARRAY(v8Value);
-	createPersistentContainer(v8Isolates[v8RuntimeHandle], resultHandle);
-	v8Isolates[v8RuntimeHandle]->objects[resultHandle]->Reset(v8Isolates[v8RuntimeHandle]->isolate, v8Value->ToObject());
+	setObject(runtime, resultHandle, v8Value->ToObject());
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayUndefinedItem
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, );
 	int index = Array::Cast(*array)->Length();
 	array->Set(index, Undefined(isolate));
 }
@@ -899,7 +1738,8 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayUndefinedItem
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayIntItem
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint value) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, );
 	Local<Value> v8Value = Int32::New(isolate, value);
 	int index = Array::Cast(*array)->Length();
 	array->Set(index, v8Value);
@@ -908,7 +1748,8 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayIntItem
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayDoubleItem
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jdouble value) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, );
 	Local<Value> v8Value = Number::New(isolate, value);
 	int index = Array::Cast(*array)->Length();
 	array->Set(index, v8Value);
@@ -917,7 +1758,8 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayDoubleItem
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayBooleanItem
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jboolean value) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, );
 	Local<Value> v8Value = Boolean::New(isolate, value);
 	int index = Array::Cast(*array)->Length();
 	array->Set(index, v8Value);
@@ -926,7 +1768,8 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayBooleanItem
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayStringItem
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jstring value) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, );
 	int index = Array::Cast(*array)->Length();
 	Local<String> v8Value = createV8String(env, isolate, value);
 	array->Set(index, v8Value);
@@ -935,9 +1778,11 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayStringItem
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1addArrayObjectItem
  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint valueHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, );
 	int index = Array::Cast(*array)->Length();
-	Local<Value> v8Value = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[valueHandle]);
+	Local<Value> v8Value = getObject(env, isolate, runtime, valueHandle);
+	ASSERT_OBJECT_VALID(v8Value, );
 	array->Set(index, v8Value);
 }
 
@@ -963,7 +1808,8 @@ int getType(Handle<Value> v8Value) {
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getType__III
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jint index) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	Handle<Value> v8Value = array->Get(index);
 	int type = getType(v8Value);
 	if ( type < 0 ) {
@@ -975,7 +1821,8 @@ JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getType__III
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getType__IIII
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint arrayHandle, jint start, jint length) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
-	Handle<Object> array = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[arrayHandle]);
+	Handle<Object> array = getObject(env, isolate, runtime, arrayHandle);
+	ASSERT_OBJECT_VALID(array, 0);
 	int result = -1;
 	for (int i = start; i < start+length; i++) {
 		Handle<Value> v8Value = array->Get(i);
@@ -995,19 +1842,630 @@ JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getType__IIII
 	return result;
 }
 
-class MethodDescriptor {
+// Tags used by V8Object#serialize on top of the value types shared with
+// V8Encoder. References point back to an object written earlier, by the
+// order in which objects were first written, which keeps shared and cyclic
+// structures intact.
+#define SERIALIZED_NULL 16
+#define SERIALIZED_REFERENCE 17
+#define SERIALIZED_DATE 18
+#define SERIALIZED_ARRAY_BUFFER 19
+#define SERIALIZED_ARRAY_BUFFER_VIEW 20
+
+#define VIEW_INT8 1
+#define VIEW_UINT8 2
+#define VIEW_UINT8_CLAMPED 3
+#define VIEW_INT16 4
+#define VIEW_UINT16 5
+#define VIEW_INT32 6
+#define VIEW_UINT32 7
+#define VIEW_FLOAT32 8
+#define VIEW_FLOAT64 9
+#define VIEW_DATA_VIEW 10
+
+// Nesting deeper than this is reported as an error instead of overflowing
+// the native stack.
+#define MAX_SERIALIZE_DEPTH 1000
+
+class DecodeCursor {
 public:
-	int methodID;
-	int v8RuntimeHandle;
+	const char* position;
+	const char* end;
+	bool failed;
+	int depth;
+	vector< Handle<Object> > objects;
 };
 
+// Typed arrays keep their elements in external array data, which gives
+// direct access to the backing store of an ArrayBuffer.
+char* getArrayBufferData(Handle<ArrayBuffer> buffer) {
+	if ( buffer->ByteLength() == 0 ) {
+		return NULL;
+	}
+	Local<Uint8Array> view = Uint8Array::New(buffer, 0, buffer->ByteLength());
+	return static_cast<char*>(view->GetIndexedPropertiesExternalArrayData());
+}
+
+Handle<Value> createArrayBufferView(int type, Handle<ArrayBuffer> buffer, size_t offset, size_t length) {
+	switch (type) {
+		case VIEW_INT8:
+			return Int8Array::New(buffer, offset, length);
+		case VIEW_UINT8:
+			return Uint8Array::New(buffer, offset, length);
+		case VIEW_UINT8_CLAMPED:
+			return Uint8ClampedArray::New(buffer, offset, length);
+		case VIEW_INT16:
+			return Int16Array::New(buffer, offset, length);
+		case VIEW_UINT16:
+			return Uint16Array::New(buffer, offset, length);
+		case VIEW_INT32:
+			return Int32Array::New(buffer, offset, length);
+		case VIEW_UINT32:
+			return Uint32Array::New(buffer, offset, length);
+		case VIEW_FLOAT32:
+			return Float32Array::New(buffer, offset, length);
+		case VIEW_FLOAT64:
+			return Float64Array::New(buffer, offset, length);
+		case VIEW_DATA_VIEW:
+			return DataView::New(buffer, offset, length);
+	}
+	return Handle<Value>();
+}
+
+// Bytes per element of a view type, 0 for unknown types.
+int getArrayBufferViewElementSize(int type) {
+	switch (type) {
+		case VIEW_INT8:
+		case VIEW_UINT8:
+		case VIEW_UINT8_CLAMPED:
+		case VIEW_DATA_VIEW:
+			return 1;
+		case VIEW_INT16:
+		case VIEW_UINT16:
+			return 2;
+		case VIEW_INT32:
+		case VIEW_UINT32:
+		case VIEW_FLOAT32:
+			return 4;
+		case VIEW_FLOAT64:
+			return 8;
+	}
+	return 0;
+}
+
+bool canRead(DecodeCursor& cursor, int size) {
+	if ( size < 0 || cursor.end - cursor.position < size ) {
+		cursor.failed = true;
+		return false;
+	}
+	return true;
+}
+
+jint readInt(DecodeCursor& cursor) {
+	jint result = 0;
+	if ( canRead(cursor, sizeof(jint)) ) {
+		memcpy(&result, cursor.position, sizeof(jint));
+		cursor.position += sizeof(jint);
+	}
+	return result;
+}
+
+jdouble readDouble(DecodeCursor& cursor) {
+	jdouble result = 0;
+	if ( canRead(cursor, sizeof(jdouble)) ) {
+		memcpy(&result, cursor.position, sizeof(jdouble));
+		cursor.position += sizeof(jdouble);
+	}
+	return result;
+}
+
+Local<String> readString(Isolate* isolate, DecodeCursor& cursor) {
+	int length = readInt(cursor);
+	if ( cursor.failed || !canRead(cursor, length * sizeof(uint16_t)) ) {
+		return String::Empty(isolate);
+	}
+	Local<String> result;
+	if ( (reinterpret_cast<uintptr_t>(cursor.position) % sizeof(uint16_t)) == 0 ) {
+		result = String::NewFromTwoByte(isolate, reinterpret_cast<const uint16_t*>(cursor.position), String::kNormalString, length);
+	} else {
+		uint16_t* chars = new uint16_t[length];
+		memcpy(chars, cursor.position, length * sizeof(uint16_t));
+		result = String::NewFromTwoByte(isolate, chars, String::kNormalString, length);
+		delete[] chars;
+	}
+	cursor.position += length * sizeof(uint16_t);
+	return result;
+}
+
+Handle<Value> decodeValue(Isolate* isolate, DecodeCursor& cursor);
+
+Handle<Value> decodeNestedValue(Isolate* isolate, DecodeCursor& cursor) {
+	if ( ++cursor.depth > MAX_SERIALIZE_DEPTH ) {
+		cursor.failed = true;
+		return Undefined(isolate);
+	}
+	Handle<Value> result = decodeValue(isolate, cursor);
+	cursor.depth--;
+	return result;
+}
+
+Handle<Value> decodeValue(Isolate* isolate, DecodeCursor& cursor) {
+	if ( !canRead(cursor, 1) ) {
+		return Undefined(isolate);
+	}
+	int type = *cursor.position++;
+	switch (type) {
+		case com_eclipsesource_v8_V8_UNDEFINED:
+			return Undefined(isolate);
+		case com_eclipsesource_v8_V8_INTEGER:
+			return Int32::New(isolate, readInt(cursor));
+		case com_eclipsesource_v8_V8_DOUBLE:
+			return Number::New(isolate, readDouble(cursor));
+		case com_eclipsesource_v8_V8_BOOLEAN:
+			if ( !canRead(cursor, 1) ) {
+				return Undefined(isolate);
+			}
+			return Boolean::New(isolate, *cursor.position++ != 0);
+		case com_eclipsesource_v8_V8_STRING:
+			return readString(isolate, cursor);
+		case SERIALIZED_NULL:
+			return Null(isolate);
+		case SERIALIZED_REFERENCE: {
+			int index = readInt(cursor);
+			if ( cursor.failed || index < 0 || index >= (int) cursor.objects.size() || cursor.objects[index].IsEmpty() ) {
+				break;
+			}
+			return cursor.objects[index];
+		}
+		case SERIALIZED_DATE: {
+			Local<Value> date = Date::New(isolate, readDouble(cursor));
+			cursor.objects.push_back(date->ToObject());
+			return date;
+		}
+		case SERIALIZED_ARRAY_BUFFER: {
+			int length = readInt(cursor);
+			if ( cursor.failed || !canRead(cursor, length) ) {
+				return Undefined(isolate);
+			}
+			Local<ArrayBuffer> buffer = ArrayBuffer::New(isolate, length);
+			if ( length > 0 ) {
+				memcpy(getArrayBufferData(buffer), cursor.position, length);
+			}
+			cursor.position += length;
+			cursor.objects.push_back(buffer);
+			return buffer;
+		}
+		case SERIALIZED_ARRAY_BUFFER_VIEW: {
+			if ( !canRead(cursor, 1) ) {
+				return Undefined(isolate);
+			}
+			int viewType = *cursor.position++;
+			int offset = readInt(cursor);
+			int length = readInt(cursor);
+			int index = cursor.objects.size();
+			cursor.objects.push_back(Handle<Object>());
+			Handle<Value> buffer = decodeNestedValue(isolate, cursor);
+			if ( cursor.failed || !buffer->IsArrayBuffer() || offset < 0 || length < 0 ) {
+				break;
+			}
+			// the view must lie within the buffer, V8 does not check it
+			int elementSize = getArrayBufferViewElementSize(viewType);
+			size_t byteLength = Handle<ArrayBuffer>::Cast(buffer)->ByteLength();
+			if ( elementSize == 0 || offset % elementSize != 0
+					|| (int64_t) offset + (int64_t) length * elementSize > (int64_t) byteLength ) {
+				break;
+			}
+			Handle<Value> view = createArrayBufferView(viewType, Handle<ArrayBuffer>::Cast(buffer), offset, length);
+			if ( view.IsEmpty() ) {
+				break;
+			}
+			cursor.objects[index] = view->ToObject();
+			return view;
+		}
+		case com_eclipsesource_v8_V8_V8_ARRAY: {
+			int length = readInt(cursor);
+			// every element takes at least its tag byte, so a length beyond the
+			// remaining bytes is corrupt and must not size the array
+			if ( cursor.failed || !canRead(cursor, length) ) {
+				break;
+			}
+			Local<Array> array = Array::New(isolate, length);
+			cursor.objects.push_back(array);
+			for (int i = 0; i < length && !cursor.failed; i++) {
+				array->Set(i, decodeNestedValue(isolate, cursor));
+			}
+			return array;
+		}
+		case com_eclipsesource_v8_V8_V8_OBJECT: {
+			int length = readInt(cursor);
+			Local<Object> object = Object::New(isolate);
+			cursor.objects.push_back(object);
+			for (int i = 0; i < length && !cursor.failed; i++) {
+				Local<String> key = readString(isolate, cursor);
+				// define own properties, Set would run setters like __proto__
+				object->ForceSet(key, decodeNestedValue(isolate, cursor));
+			}
+			return object;
+		}
+	}
+	cursor.failed = true;
+	return Undefined(isolate);
+}
+
+bool decodeBuffer(JNIEnv* env, Isolate* isolate, jobject &buffer, jint &offset, jint &length, Handle<Value> &result) {
+	char* data = static_cast<char*>(env->GetDirectBufferAddress(buffer));
+	if ( data == NULL ) {
+		throwV8RuntimeException(env, "Buffer is not a direct buffer");
+		return false;
+	}
+	DecodeCursor cursor;
+	cursor.position = data + offset;
+	cursor.end = cursor.position + length;
+	cursor.failed = false;
+	cursor.depth = 0;
+	result = decodeValue(isolate, cursor);
+	if ( cursor.failed ) {
+		throwV8RuntimeException(env, "Invalid encoded value");
+		return false;
+	}
+	return true;
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1decodeObject
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jobject buffer, jint offset, jint length, jint resultHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	Handle<Value> v8Value;
+	if ( !decodeBuffer(env, isolate, buffer, offset, length, v8Value) )
+		return;
+	ASSERT_IS_OBJECT(v8Value);
+	if ( v8Value->IsArray() ) {
+		throwResultUndefinedException(env, "");
+		return;
+	}
+	setObject(runtime, resultHandle, v8Value->ToObject());
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1decodeArray
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jobject buffer, jint offset, jint length, jint resultHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	Handle<Value> v8Value;
+	if ( !decodeBuffer(env, isolate, buffer, offset, length, v8Value) )
+		return;
+	ASSERT_IS_ARRAY(v8Value);
+	setObject(runtime, resultHandle, v8Value->ToObject());
+}
+
+class EncodeWriter {
+public:
+	vector<char> data;
+	vector< Handle<Object> > objects;
+	map< int, vector<int> > identities;
+	const char* error;
+	int depth;
+};
+
+void writeBytes(EncodeWriter& writer, const void* bytes, size_t size) {
+	const char* start = static_cast<const char*>(bytes);
+	writer.data.insert(writer.data.end(), start, start + size);
+}
+
+void writeTag(EncodeWriter& writer, int tag) {
+	writer.data.push_back(static_cast<char>(tag));
+}
+
+void writeInt(EncodeWriter& writer, jint value) {
+	writeBytes(writer, &value, sizeof(jint));
+}
+
+void writeDouble(EncodeWriter& writer, jdouble value) {
+	writeBytes(writer, &value, sizeof(jdouble));
+}
+
+void writeString(EncodeWriter& writer, Handle<String> string) {
+	int length = string->Length();
+	writeInt(writer, length);
+	size_t start = writer.data.size();
+	writer.data.resize(start + length * sizeof(uint16_t));
+	if ( length == 0 ) {
+		return;
+	}
+	char* target = &writer.data[start];
+	if ( (reinterpret_cast<uintptr_t>(target) % sizeof(uint16_t)) == 0 ) {
+		string->Write(reinterpret_cast<uint16_t*>(target), 0, length, String::NO_NULL_TERMINATION);
+	} else {
+		uint16_t* chars = new uint16_t[length];
+		string->Write(chars, 0, length, String::NO_NULL_TERMINATION);
+		memcpy(target, chars, length * sizeof(uint16_t));
+		delete[] chars;
+	}
+}
+
+// Returns the index of an object written before, or -1 after remembering
+// the object under the next index.
+int findOrAddReference(EncodeWriter& writer, Handle<Object> object) {
+	vector<int>& candidates = writer.identities[object->GetIdentityHash()];
+	for (size_t i = 0; i < candidates.size(); i++) {
+		if ( writer.objects[candidates[i]]->StrictEquals(object) ) {
+			return candidates[i];
+		}
+	}
+	candidates.push_back(writer.objects.size());
+	writer.objects.push_back(object);
+	return -1;
+}
+
+int getArrayBufferViewType(Handle<Value> value) {
+	if ( value->IsInt8Array() ) return VIEW_INT8;
+	if ( value->IsUint8Array() ) return VIEW_UINT8;
+	if ( value->IsUint8ClampedArray() ) return VIEW_UINT8_CLAMPED;
+	if ( value->IsInt16Array() ) return VIEW_INT16;
+	if ( value->IsUint16Array() ) return VIEW_UINT16;
+	if ( value->IsInt32Array() ) return VIEW_INT32;
+	if ( value->IsUint32Array() ) return VIEW_UINT32;
+	if ( value->IsFloat32Array() ) return VIEW_FLOAT32;
+	if ( value->IsFloat64Array() ) return VIEW_FLOAT64;
+	return VIEW_DATA_VIEW;
+}
+
+bool encodeValue(Isolate* isolate, EncodeWriter& writer, Handle<Value> value);
+
+// Encodes a property or element read from a container, which fails if the
+// read threw, and keeps the nesting within MAX_SERIALIZE_DEPTH.
+bool encodeNestedValue(Isolate* isolate, EncodeWriter& writer, Handle<Value> value) {
+	if ( value.IsEmpty() ) {
+		return false;
+	}
+	if ( ++writer.depth > MAX_SERIALIZE_DEPTH ) {
+		writer.error = "Object graph is nested too deeply to be serialized";
+		return false;
+	}
+	bool result = encodeValue(isolate, writer, value);
+	writer.depth--;
+	return result;
+}
+
+// Objects with internal state that is not visible as properties would
+// silently come back empty, reject them instead.
+bool isUnserializableObject(Handle<Object> object) {
+	if ( object->IsRegExp() ) {
+		return true;
+	}
+	String::Utf8Value tag(object->ObjectProtoToString());
+	const char* name = ToCString(tag);
+	return strcmp(name, "[object Map]") == 0 || strcmp(name, "[object Set]") == 0
+			|| strcmp(name, "[object WeakMap]") == 0 || strcmp(name, "[object WeakSet]") == 0;
+}
+
+bool encodeValue(Isolate* isolate, EncodeWriter& writer, Handle<Value> value) {
+	if ( value->IsUndefined() ) {
+		writeTag(writer, com_eclipsesource_v8_V8_UNDEFINED);
+	} else if ( value->IsNull() ) {
+		writeTag(writer, SERIALIZED_NULL);
+	} else if ( value->IsInt32() ) {
+		writeTag(writer, com_eclipsesource_v8_V8_INTEGER);
+		writeInt(writer, value->Int32Value());
+	} else if ( value->IsNumber() ) {
+		writeTag(writer, com_eclipsesource_v8_V8_DOUBLE);
+		writeDouble(writer, value->NumberValue());
+	} else if ( value->IsBoolean() ) {
+		writeTag(writer, com_eclipsesource_v8_V8_BOOLEAN);
+		writer.data.push_back(value->BooleanValue() ? 1 : 0);
+	} else if ( value->IsString() ) {
+		writeTag(writer, com_eclipsesource_v8_V8_STRING);
+		writeString(writer, value->ToString());
+	} else if ( value->IsFunction() ) {
+		writer.error = "Functions cannot be serialized";
+		return false;
+	} else if ( value->IsObject() ) {
+		Handle<Object> object = value->ToObject();
+		int reference = findOrAddReference(writer, object);
+		if ( reference >= 0 ) {
+			writeTag(writer, SERIALIZED_REFERENCE);
+			writeInt(writer, reference);
+		} else if ( value->IsDate() ) {
+			writeTag(writer, SERIALIZED_DATE);
+			writeDouble(writer, Date::Cast(*value)->ValueOf());
+		} else if ( value->IsArrayBuffer() ) {
+			Handle<ArrayBuffer> buffer = Handle<ArrayBuffer>::Cast(value);
+			int length = buffer->ByteLength();
+			writeTag(writer, SERIALIZED_ARRAY_BUFFER);
+			writeInt(writer, length);
+			if ( length > 0 ) {
+				writeBytes(writer, getArrayBufferData(buffer), length);
+			}
+		} else if ( value->IsArrayBufferView() ) {
+			Handle<ArrayBufferView> view = Handle<ArrayBufferView>::Cast(value);
+			writeTag(writer, SERIALIZED_ARRAY_BUFFER_VIEW);
+			writeTag(writer, getArrayBufferViewType(value));
+			writeInt(writer, view->ByteOffset());
+			writeInt(writer, value->IsTypedArray() ? Handle<TypedArray>::Cast(value)->Length() : view->ByteLength());
+			return encodeNestedValue(isolate, writer, view->Buffer());
+		} else if ( value->IsArray() ) {
+			Handle<Array> array = Handle<Array>::Cast(value);
+			int length = array->Length();
+			writeTag(writer, com_eclipsesource_v8_V8_V8_ARRAY);
+			writeInt(writer, length);
+			for (int i = 0; i < length; i++) {
+				if ( !encodeNestedValue(isolate, writer, array->Get(i)) ) {
+					return false;
+				}
+			}
+		} else if ( isUnserializableObject(object) ) {
+			writer.error = "Maps, Sets and RegExps cannot be serialized";
+			return false;
+		} else {
+			Local<Array> keys = object->GetOwnPropertyNames();
+			if ( keys.IsEmpty() ) {
+				return false;
+			}
+			int length = keys->Length();
+			writeTag(writer, com_eclipsesource_v8_V8_V8_OBJECT);
+			writeInt(writer, length);
+			for (int i = 0; i < length; i++) {
+				Local<Value> key = keys->Get(i);
+				if ( key.IsEmpty() ) {
+					return false;
+				}
+				writeString(writer, key->ToString());
+				if ( !encodeNestedValue(isolate, writer, object->Get(key)) ) {
+					return false;
+				}
+			}
+		}
+	} else {
+		writer.error = "Value cannot be serialized";
+		return false;
+	}
+	return true;
+}
+
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1serialize
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jobject buffer, jint offset, jint capacity) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
+	char* data = static_cast<char*>(env->GetDirectBufferAddress(buffer));
+	if ( data == NULL ) {
+		throwV8RuntimeException(env, "Buffer is not a direct buffer");
+		return 0;
+	}
+	Handle<Value> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, 0);
+	vector<char>().swap(runtime->pendingSerialized);
+	EncodeWriter writer;
+	writer.error = NULL;
+	writer.depth = 0;
+	TryCatch tryCatch;
+	bool encoded = encodeValue(isolate, writer, object);
+	if ( tryCatch.HasCaught() ) {
+		throwExecutionException(env, isolate, &tryCatch);
+		return 0;
+	}
+	if ( !encoded ) {
+		throwV8RuntimeException(env, writer.error != NULL ? writer.error : "Value cannot be serialized");
+		return 0;
+	}
+	int length = writer.data.size();
+	if ( length <= capacity ) {
+		memcpy(data + offset, &writer.data[0], length);
+	} else {
+		// keep the result for _takeSerialized instead of walking the graph
+		// and running its getters a second time
+		runtime->pendingSerialized.swap(writer.data);
+	}
+	return length;
+}
+
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1takeSerialized
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jobject buffer, jint offset, jint capacity) {
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	if ( runtime == NULL ) {
+		throwError(env, "V8 isolate not found.");
+		return 0;
+	}
+	int length = runtime->pendingSerialized.size();
+	if ( buffer != NULL && length > 0 && length <= capacity ) {
+		char* data = static_cast<char*>(env->GetDirectBufferAddress(buffer));
+		if ( data == NULL ) {
+			throwV8RuntimeException(env, "Buffer is not a direct buffer");
+			return 0;
+		}
+		memcpy(data + offset, &runtime->pendingSerialized[0], length);
+	}
+	vector<char>().swap(runtime->pendingSerialized);
+	return length;
+}
+
+JNIEXPORT jobject JNICALL Java_com_eclipsesource_v8_V8__1deserialize
+  (JNIEnv *env, jobject v8, jint v8RuntimeHandle, jobject buffer, jint offset, jint length) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
+	Handle<Value> result;
+	if ( !decodeBuffer(env, isolate, buffer, offset, length, result) ) {
+		return NULL;
+	}
+	if ( !result->IsObject() ) {
+		throwResultUndefinedException(env, "");
+		return NULL;
+	}
+	return createJavaObject(env, v8, v8RuntimeHandle, result);
+}
+
+// The ArrayBuffer is external: V8 neither frees nor moves the memory, which
+// stays owned by the Java buffer that the runtime keeps reachable.
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1createArrayBuffer
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jobject buffer, jint resultHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	void* data = env->GetDirectBufferAddress(buffer);
+	if ( data == NULL ) {
+		throwV8RuntimeException(env, "Buffer is not a direct buffer");
+		return;
+	}
+	size_t length = static_cast<size_t>(env->GetDirectBufferCapacity(buffer));
+	setObject(runtime, resultHandle, ArrayBuffer::New(isolate, data, length));
+}
+
+JNIEXPORT jobject JNICALL Java_com_eclipsesource_v8_V8__1parseJson
+  (JNIEnv *env, jobject v8, jint v8RuntimeHandle, jobject buffer, jint offset, jint length) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, NULL);
+	char* data = static_cast<char*>(env->GetDirectBufferAddress(buffer));
+	if ( data == NULL ) {
+		throwV8RuntimeException(env, "Buffer is not a direct buffer");
+		return NULL;
+	}
+	Local<String> json = String::NewFromUtf8(isolate, data + offset, String::kNormalString, length);
+	TryCatch tryCatch;
+	Local<Value> result = JSON::Parse(json);
+	if ( tryCatch.HasCaught() ) {
+		throwExecutionException(env, isolate, &tryCatch);
+		return NULL;
+	}
+	if ( result.IsEmpty() || !result->IsObject() ) {
+		throwResultUndefinedException(env, "");
+		return NULL;
+	}
+	Handle<Value> value = result;
+	return createJavaObject(env, v8, v8RuntimeHandle, value);
+}
+
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1toJson
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jobject buffer, jint offset, jint capacity) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, 0);
+	char* data = static_cast<char*>(env->GetDirectBufferAddress(buffer));
+	if ( data == NULL ) {
+		throwV8RuntimeException(env, "Buffer is not a direct buffer");
+		return 0;
+	}
+	Handle<Value> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, 0);
+	vector<char>().swap(runtime->pendingSerialized);
+	Local<Function> stringify = Local<Function>::New(isolate, runtime->jsonStringify);
+	TryCatch tryCatch;
+	Handle<Value> result = stringify->Call(context->Global(), 1, &object);
+	if ( tryCatch.HasCaught() ) {
+		throwExecutionException(env, isolate, &tryCatch);
+		return 0;
+	}
+	ASSERT_IS_STRING(result);
+	Handle<String> string = result->ToString();
+	int length = string->Utf8Length();
+	if ( length <= capacity ) {
+		string->WriteUtf8(data + offset, length, NULL, String::NO_NULL_TERMINATION);
+	} else if ( length > 0 ) {
+		// keep the result for _takeSerialized instead of running toJSON
+		// methods and getters a second time
+		runtime->pendingSerialized.resize(length);
+		string->WriteUtf8(&runtime->pendingSerialized[0], length, NULL, String::NO_NULL_TERMINATION);
+	}
+	return length;
+}
+
 jobject createParameterArray(JNIEnv* env, int v8RuntimeHandle, jobject v8, int size, const FunctionCallbackInfo<Value>& args) {
-	Isolate* isolate = getIsolate(env, v8RuntimeHandle);
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	Isolate* isolate = runtime->isolate;
 	jmethodID methodID = env->GetMethodID(v8ArrayCls, "<init>", "(Lcom/eclipsesource/v8/V8;)V");
 	jmethodID getHandle = env->GetMethodID(v8ArrayCls, "getHandle", "()I");
 	jobject result = env->NewObject(v8ArrayCls, methodID, v8);
 	jint parameterHandle = env->CallIntMethod(result, getHandle);
-	Handle<Object> parameters = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[parameterHandle]);
+	Handle<Object> parameters = getObject(env, isolate, runtime, parameterHandle);
+	ASSERT_OBJECT_VALID(parameters, result);
 	for ( int i = 0; i < size; i++) {
 		parameters->Set(i, args[i]);
 	}
@@ -1019,7 +2477,11 @@ void voidCallback(const FunctionCallbackInfo<Value>& args) {
 	Local<External> data = Local<External>::Cast(args.Data());
 	void *methodDescriptorPtr = data->Value();
 	MethodDescriptor* md = static_cast<MethodDescriptor*>(methodDescriptorPtr);
-	jobject v8 = v8Isolates[md->v8RuntimeHandle]->v8;
+	if ( md->retired ) {
+		args.GetIsolate()->ThrowException(String::NewFromUtf8(args.GetIsolate(), "Java callback removed by a runtime reset"));
+		return;
+	}
+	jobject v8 = getRuntime(md->v8RuntimeHandle)->v8;
 	JNIEnv * env;
 	getJNIEnv(env);
 	jobject parameters = createParameterArray(env, md->v8RuntimeHandle, v8, size, args);
@@ -1075,8 +2537,13 @@ void objectCallback(const FunctionCallbackInfo<Value>& args) {
 	Local<External> data = Local<External>::Cast(args.Data());
 	void *methodDescriptorPtr = data->Value();
 	MethodDescriptor* md = static_cast<MethodDescriptor*>(methodDescriptorPtr);
-	jobject v8 = v8Isolates[md->v8RuntimeHandle]->v8;
-	Isolate* isolate = v8Isolates[md->v8RuntimeHandle]->isolate;
+	if ( md->retired ) {
+		args.GetIsolate()->ThrowException(String::NewFromUtf8(args.GetIsolate(), "Java callback removed by a runtime reset"));
+		return;
+	}
+	V8Runtime* runtime = getRuntime(md->v8RuntimeHandle);
+	jobject v8 = runtime->v8;
+	Isolate* isolate = runtime->isolate;
 	JNIEnv * env;
 	getJNIEnv(env);
 	jobject parameters = createParameterArray(env, md->v8RuntimeHandle, v8, size, args);
@@ -1097,18 +2564,23 @@ void objectCallback(const FunctionCallbackInfo<Value>& args) {
 			args.GetReturnValue().Set(getDouble(env, resultObject));
 		} else if ( returnType == com_eclipsesource_v8_V8_STRING ) {
 			jstring stringResult = (jstring) resultObject;
-			Local<String> result = createV8String(env, v8Isolates[md->v8RuntimeHandle]->isolate, stringResult);
+			Local<String> result = createV8String(env, isolate, stringResult);
 			args.GetReturnValue().Set(result);
-		} else if ( returnType == com_eclipsesource_v8_V8_V8_ARRAY ) {
+		} else if ( returnType == com_eclipsesource_v8_V8_V8_ARRAY || returnType == com_eclipsesource_v8_V8_V8_OBJECT ) {
 			int resultHandle = getHandle(env, resultObject);
-			Handle<Object> result = Local<Object>::New(isolate, *v8Isolates[md->v8RuntimeHandle]->objects[resultHandle]);
-			releaseArray(env, resultObject);
-			args.GetReturnValue().Set(result);
-		} else if ( returnType == com_eclipsesource_v8_V8_V8_OBJECT ) {
-			int resultHandle = getHandle(env, resultObject);
-			Handle<Object> result = Local<Object>::New(isolate, *v8Isolates[md->v8RuntimeHandle]->objects[resultHandle]);
-			release(env, resultObject);
-			args.GetReturnValue().Set(result);
+			Handle<Object> result = getObject(env, isolate, runtime, resultHandle);
+			if ( result.IsEmpty() ) {
+				// a released or stale V8Value was returned from Java
+				env->ExceptionClear();
+				isolate->ThrowException(String::NewFromUtf8(isolate, "Invalid object returned from Java"));
+			} else {
+				if ( returnType == com_eclipsesource_v8_V8_V8_ARRAY ) {
+					releaseArray(env, resultObject);
+				} else {
+					release(env, resultObject);
+				}
+				args.GetReturnValue().Set(result);
+			}
 		} else {
 			args.GetReturnValue().SetUndefined();
 		}
@@ -1125,62 +2597,138 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1registerJavaMethod
 	if ( !voidMethod ) {
 		callback = objectCallback;
 	}
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, );
 	Local<String> v8FunctionName = createV8String(env, isolate, functionName);
 	MethodDescriptor* md = new MethodDescriptor();
 	md -> methodID = methodID;
 	md -> v8RuntimeHandle = v8RuntimeHandle;
+	runtime->methodDescriptors.push_back(md);
+	reportExternalMemory(runtime);
 	object->Set(v8FunctionName, Function::New(isolate, callback, External::New(isolate, md)));
 }
 
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1setPrototype
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jint prototypeHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
-	Handle<Object> prototype = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[prototypeHandle]);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, );
+	Handle<Object> prototype = getObject(env, isolate, runtime, prototypeHandle);
+	ASSERT_OBJECT_VALID(prototype, );
 	object->SetPrototype(prototype);
 }
 
 JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1equals
   (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jint thatHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, false);
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
-	Handle<Object> that = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[thatHandle]);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, false);
+	Handle<Object> that = getObject(env, isolate, runtime, thatHandle);
+	ASSERT_OBJECT_VALID(that, false);
 	return object->Equals(that);
 }
 
 JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1strictEquals
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jint thatHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, false);
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
-	Handle<Object> that = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[thatHandle]);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, false);
+	Handle<Object> that = getObject(env, isolate, runtime, thatHandle);
+	ASSERT_OBJECT_VALID(that, false);
 	return object->StrictEquals(that);
 }
 
 JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1sameValue
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle, jint thatHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, false);
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
-	Handle<Object> that = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[thatHandle]);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, false);
+	Handle<Object> that = getObject(env, isolate, runtime, thatHandle);
+	ASSERT_OBJECT_VALID(that, false);
 	return object->SameValue(that);
 }
 
+void weakObjectCallback(const WeakCallbackData<Object, ObjectSlot>& data) {
+	ObjectSlot* slot = data.GetParameter();
+	slot->object.Reset();
+	slot->collected = true;
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1setWeak
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	ObjectSlot* slot = runtime->objects.find(objectHandle);
+	if ( slot == NULL ) {
+		throwV8RuntimeException(env, "Invalid object handle");
+		return;
+	} else if ( slot->collected ) {
+		return;
+	}
+	slot->object.SetWeak(slot, weakObjectCallback);
+}
+
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1clearWeak
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, );
+	ObjectSlot* slot = runtime->objects.find(objectHandle);
+	if ( slot == NULL ) {
+		throwV8RuntimeException(env, "Invalid object handle");
+		return;
+	} else if ( slot->collected ) {
+		return;
+	}
+	slot->object.ClearWeak();
+}
+
+JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1isWeak
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
+	Isolate* isolate = SETUP(env, v8RuntimeHandle, false);
+	ObjectSlot* slot = runtime->objects.find(objectHandle);
+	if ( slot == NULL ) {
+		return false;
+	}
+	return slot->collected || slot->object.IsWeak();
+}
+
+JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1isCollected
+  (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
+	V8Runtime* runtime = getRuntime(v8RuntimeHandle);
+	if ( runtime == NULL ) {
+		return false;
+	}
+	ObjectSlot* slot = runtime->objects.find(objectHandle);
+	return slot != NULL && slot->collected;
+}
+
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1identityHash
 (JNIEnv *env, jobject, jint v8RuntimeHandle, jint objectHandle) {
 	Isolate* isolate = SETUP(env, v8RuntimeHandle, false);
-	Handle<Object> object = Local<Object>::New(isolate, *v8Isolates[v8RuntimeHandle]->objects[objectHandle]);
+	Handle<Object> object = getObject(env, isolate, runtime, objectHandle);
+	ASSERT_OBJECT_VALID(object, false);
 	return object->GetIdentityHash();
 }
 
 Isolate* getIsolate(JNIEnv *env, int handle) {
-	if ( v8Isolates.find(handle) == v8Isolates.end() ) {
+	V8Runtime* runtime = getRuntime(handle);
+	if ( runtime == NULL ) {
 		throwError(env, "V8 isolate not found.");
 		return NULL;
 	}
-	return v8Isolates[handle]->isolate;
+	return runtime->isolate;
+}
+
+V8Runtime* getRuntime(int handle) {
+	RuntimeSlot* slot = v8Isolates.find(handle);
+	if ( slot == NULL ) {
+		return NULL;
+	}
+	return slot->runtime;
 }
 
 void throwResultUndefinedException( JNIEnv *env, const char *message ) {
+    if ( env->ExceptionCheck() ) {
+        return;
+    }
     (env)->ThrowNew(v8ResultsUndefinedCls, message );
 }
 
@@ -1233,6 +2781,14 @@ void throwParseException( JNIEnv *env, Isolate* isolate, TryCatch* tryCatch) {
 
 void throwExecutionException( JNIEnv *env, Isolate* isolate, TryCatch* tryCatch) {
 	HandleScope handle_scope(isolate);
+	if ( !tryCatch->CanContinue() ) {
+		// A callback on the stack may have left the nested termination pending.
+		if ( env->ExceptionCheck() ) {
+			env->ExceptionClear();
+		}
+		(env)->ThrowNew(v8ScriptTerminatedException, "Script execution terminated");
+		return;
+	}
 	String::Utf8Value exception(tryCatch->Exception());
 	const char* exceptionString = ToCString(exception);
 	Handle<Message> message = tryCatch->Message();
@@ -1256,6 +2812,9 @@ void throwExecutionException( JNIEnv *env, Isolate* isolate, TryCatch* tryCatch)
 }
 
 void throwV8RuntimeException( JNIEnv *env, const char *message ) {
+    if ( env->ExceptionCheck() ) {
+        return;
+    }
     (env)->ThrowNew(v8RuntimeException, message );
 }
 
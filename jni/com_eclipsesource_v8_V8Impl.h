@@ -42,10 +42,10 @@ JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1releaseRuntime
 /*
  * Class:     com_eclipsesource_v8_V8
  * Method:    _createIsolate
- * Signature: (ILjava/lang/String;)V
+ * Signature: (ILjava/lang/String;IIIII)V
  */
 JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1createIsolate
-  (JNIEnv *, jobject, jint, jstring);
+  (JNIEnv *, jobject, jint, jstring, jint, jint, jint, jint, jint);
 
 /*
  * Class:     com_eclipsesource_v8_V8
@@ -575,6 +575,238 @@ JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetBooleans__IIII_3Z
 JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetStrings__IIII_3Ljava_lang_String_2
   (JNIEnv *, jobject, jint, jint, jint, jint, jobjectArray);
 
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _decodeObject
+ * Signature: (ILjava/nio/ByteBuffer;III)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1decodeObject
+  (JNIEnv *, jobject, jint, jobject, jint, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _decodeArray
+ * Signature: (ILjava/nio/ByteBuffer;III)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1decodeArray
+  (JNIEnv *, jobject, jint, jobject, jint, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _parseJson
+ * Signature: (ILjava/nio/ByteBuffer;II)Ljava/lang/Object;
+ */
+JNIEXPORT jobject JNICALL Java_com_eclipsesource_v8_V8__1parseJson
+  (JNIEnv *, jobject, jint, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _toJson
+ * Signature: (IILjava/nio/ByteBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1toJson
+  (JNIEnv *, jobject, jint, jint, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _arrayExtractColumns
+ * Signature: (II[Ljava/lang/String;[I)[Ljava/lang/Object;
+ */
+JNIEXPORT jobjectArray JNICALL Java_com_eclipsesource_v8_V8__1arrayExtractColumns
+  (JNIEnv *, jobject, jint, jint, jobjectArray, jintArray);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _releaseHandles
+ * Signature: (I[II)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1releaseHandles
+  (JNIEnv *, jobject, jint, jintArray, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _setWeak
+ * Signature: (II)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1setWeak
+  (JNIEnv *, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _clearWeak
+ * Signature: (II)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1clearWeak
+  (JNIEnv *, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _isWeak
+ * Signature: (II)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1isWeak
+  (JNIEnv *, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _isCollected
+ * Signature: (II)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1isCollected
+  (JNIEnv *, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _getObjectIdentity
+ * Signature: (IILjava/lang/String;I)I
+ */
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1getObjectIdentity
+  (JNIEnv *, jobject, jint, jint, jstring, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _arrayGetObjectIdentity
+ * Signature: (IIII)I
+ */
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1arrayGetObjectIdentity
+  (JNIEnv *, jobject, jint, jint, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _adjustExternalMemory
+ * Signature: (IJ)J
+ */
+JNIEXPORT jlong JNICALL Java_com_eclipsesource_v8_V8__1adjustExternalMemory
+  (JNIEnv *, jobject, jint, jlong);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _getNativeMemoryUsage
+ * Signature: (I[J)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1getNativeMemoryUsage
+  (JNIEnv *, jobject, jint, jlongArray);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _getHeapStatistics
+ * Signature: (I[J)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1getHeapStatistics
+  (JNIEnv *, jobject, jint, jlongArray);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _setGCCallbacks
+ * Signature: (IZ)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1setGCCallbacks
+  (JNIEnv *, jobject, jint, jboolean);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _terminateExecution
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1terminateExecution
+  (JNIEnv *, jobject, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _cancelTerminateExecution
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1cancelTerminateExecution
+  (JNIEnv *, jobject, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _createContext
+ * Signature: (II)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1createContext
+  (JNIEnv *, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _setContext
+ * Signature: (II)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1setContext
+  (JNIEnv *, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _executeSnapshotScript
+ * Signature: (ILjava/nio/ByteBuffer;IILjava/lang/String;Ljava/nio/ByteBuffer;II)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_com_eclipsesource_v8_V8__1executeSnapshotScript
+  (JNIEnv *, jobject, jint, jobject, jint, jint, jstring, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _resetRuntime
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1resetRuntime
+  (JNIEnv *, jobject, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _runMicrotasks
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1runMicrotasks
+  (JNIEnv *, jobject, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _idleNotification
+ * Signature: (II)Z
+ */
+JNIEXPORT jboolean JNICALL Java_com_eclipsesource_v8_V8__1idleNotification
+  (JNIEnv *, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _lowMemoryNotification
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1lowMemoryNotification
+  (JNIEnv *, jobject, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _serialize
+ * Signature: (IILjava/nio/ByteBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1serialize
+  (JNIEnv *, jobject, jint, jint, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _deserialize
+ * Signature: (ILjava/nio/ByteBuffer;II)Ljava/lang/Object;
+ */
+JNIEXPORT jobject JNICALL Java_com_eclipsesource_v8_V8__1deserialize
+  (JNIEnv *, jobject, jint, jobject, jint, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _createArrayBuffer
+ * Signature: (ILjava/nio/ByteBuffer;I)V
+ */
+JNIEXPORT void JNICALL Java_com_eclipsesource_v8_V8__1createArrayBuffer
+  (JNIEnv *, jobject, jint, jobject, jint);
+
+/*
+ * Class:     com_eclipsesource_v8_V8
+ * Method:    _takeSerialized
+ * Signature: (ILjava/nio/ByteBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_com_eclipsesource_v8_V8__1takeSerialized
+  (JNIEnv *, jobject, jint, jobject, jint, jint);
+
 #ifdef __cplusplus
 }
 #endif
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * Notified before and after each garbage collection of a runtime, see
+ * {@link V8#addGCListener(GCListener)}.
+ *
+ * The listener is called from within the garbage collector and must not
+ * access the runtime.
+ */
+public interface GCListener {
+
+    public static final int SCAVENGE           = 1;
+    public static final int MARK_SWEEP_COMPACT = 2;
+
+    public void gcStarted(V8 runtime, int type);
+
+    public void gcFinished(V8 runtime, int type, long pauseMicros);
+
+}
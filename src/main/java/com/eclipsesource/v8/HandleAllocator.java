@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * Hands out handles for the native slot tables. The low bits of a handle are
+ * the slot index and the high bits the generation of that slot. Released
+ * handles go to a free list and come back with the next generation, so the
+ * tables stay dense and a stale handle never resolves to a newer object.
+ */
+final class HandleAllocator {
+
+    static final int  INDEX_BITS       = 22;
+    static final int  INDEX_MASK       = (1 << INDEX_BITS) - 1;
+    static final int  GENERATION_MASK  = 0x1FF;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[]     freeHandles      = new int[INITIAL_CAPACITY];
+    private int       freeCount        = 0;
+    private int       nextIndex;
+    private int       liveCount        = 0;
+
+    HandleAllocator(final int firstIndex) {
+        nextIndex = firstIndex;
+    }
+
+    int allocate() {
+        liveCount++;
+        if (freeCount > 0) {
+            return freeHandles[--freeCount];
+        }
+        if (nextIndex > INDEX_MASK) {
+            liveCount--;
+            throw new IllegalStateException("Too many handles: " + (INDEX_MASK + 1));
+        }
+        return nextIndex++;
+    }
+
+    void release(final int handle) {
+        int generation = ((handle >>> INDEX_BITS) + 1) & GENERATION_MASK;
+        if (freeCount == freeHandles.length) {
+            int[] grown = new int[freeHandles.length * 2];
+            System.arraycopy(freeHandles, 0, grown, 0, freeCount);
+            freeHandles = grown;
+        }
+        freeHandles[freeCount++] = (generation << INDEX_BITS) | (handle & INDEX_MASK);
+        liveCount--;
+    }
+
+    int getLiveCount() {
+        return liveCount;
+    }
+
+    static int getIndex(final int handle) {
+        return handle & INDEX_MASK;
+    }
+
+    static int getGeneration(final int handle) {
+        return (handle >>> INDEX_BITS) & GENERATION_MASK;
+    }
+
+}
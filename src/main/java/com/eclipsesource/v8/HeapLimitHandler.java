@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * Notified after a garbage collection that left the heap of a runtime above
+ * the configured threshold, see {@link V8RuntimeConfig}.
+ *
+ * The handler is called from within the garbage collector and must not
+ * access the runtime.
+ */
+public interface HeapLimitHandler {
+
+    /**
+     * Returns true to terminate the script currently executing, false to let
+     * it continue. Collections while no script is executing notify the
+     * handler as well, but never terminate anything. The handler is notified
+     * again once half of the remaining heap has been used, or once the heap
+     * shrank below the threshold and grew above it again.
+     */
+    public boolean nearHeapLimit(V8 runtime, long usedHeapSize, long heapSizeLimit);
+
+}
@@ -10,23 +10,83 @@
  ******************************************************************************/
 package com.eclipsesource.v8;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class V8 extends V8Object {
 
-    private static int       v8InstanceCounter;
-    private static Thread    thread                 = null;
+    private static final int JSON_BUFFER_SIZE       = 8192;
+    private static final int MAX_SCRATCH_BUFFER_SIZE = 65536;
+    private static final int MAX_ALLOCATION_STACK_DEPTH = 16;
+    private static final String PROMISE_HELPER      = "({\n"
+            + "  attach : function(promise, id) {\n"
+            + "    var self = this;\n"
+            + "    Promise.resolve(promise).then(function(value) { self.settle(id, true, value); },\n"
+            + "        function(reason) { self.settle(id, false, reason); });\n"
+            + "  },\n"
+            + "  defer : function() {\n"
+            + "    var deferred = {};\n"
+            + "    deferred.promise = new Promise(function(resolve, reject) {\n"
+            + "      deferred.resolve = resolve;\n"
+            + "      deferred.reject = reject;\n"
+            + "    });\n"
+            + "    return deferred;\n"
+            + "  }\n"
+            + "})";
+
+    private static HandleAllocator runtimeHandles   = new HandleAllocator(0);
+    private final Thread     thread                 = Thread.currentThread();
     private static List<V8>  runtimes               = new ArrayList<>();
     private static Runnable  debugHandler           = null;
 
     private int              methodReferenceCounter = 0;
     private int              v8RuntimeHandle;
     private boolean          debugEnabled           = false;
+    private ByteBuffer       jsonBuffer             = null;
+    private ByteBuffer       serializeBuffer        = null;
+    private ByteBuffer       scratchBuffer          = null;
+    private HandleAllocator  objectHandles          = new HandleAllocator(1);
+    private List<V8MemoryScope> memoryScopes        = new ArrayList<>();
+    private ReferenceQueue<V8Value> releaseQueue    = null;
+    private Set<V8ValueReference> valueReferences   = new HashSet<>();
+    private long             autoReleasedCount      = 0;
+    private boolean          identityCache          = false;
+    private Map<Integer, V8IdentityEntry> identityWrappers = new HashMap<>();
+    private int              allocationSampling     = 0;
+    private int              allocationCountdown    = 0;
+    private Map<V8AllocationSite, V8AllocationSite> allocationSites = new HashMap<>();
+    private HeapLimitHandler heapLimitHandler       = null;
+    private List<GCListener> gcListeners            = new ArrayList<>();
+    private long             executionTimeout       = 0;
+    private int              executionDepth         = 0;
+    boolean                  executing              = false;
+    volatile boolean         terminationRequested   = false;
+    volatile V8SharedBuffer  waitingOn              = null;
+    long                     executionDeadline      = 0;
+    private V8Context        activeContext          = null;
+    int                      currentEpoch           = 0;
+    private boolean          autoRunMicrotasks      = true;
+    volatile V8EventLoop     eventLoop              = null;
+    private Queue<Runnable>  pendingTasks           = new ConcurrentLinkedQueue<>();
+    private V8Object         promiseHelper          = null;
+    private int              promiseCounter         = 0;
+    private Map<Integer, V8Future<Object>> promiseFutures = new HashMap<>();
+    private Set<V8Object>    pendingDeferreds       = Collections.newSetFromMap(new IdentityHashMap<V8Object, Boolean>());
+    private List<V8SharedBuffer> sharedBuffers      = new ArrayList<>();
+    private V8Object         atomics                = null;
     long                     objectReferences       = 0;
 
     private static boolean   nativeLibraryLoaded    = false;
@@ -57,17 +117,34 @@ public class V8 extends V8Object {
         return nativeLibraryLoaded;
     }
 
-    public synchronized static V8 createV8Runtime() {
-        return createV8Runtime(null);
+    public static V8 createV8Runtime() {
+        return createV8Runtime((String) null);
     }
 
-    public synchronized static V8 createV8Runtime(final String globalAlias) {
-        checkNativeLibraryLoaded();
-        if (thread == null) {
-            thread = Thread.currentThread();
+    public static V8 createV8Runtime(final String globalAlias) {
+        return createV8Runtime(new V8RuntimeConfig().setGlobalAlias(globalAlias));
+    }
+
+    /**
+     * Creates a runtime owned by the calling thread. Each runtime may only
+     * be used from the thread that created it, but different threads may
+     * own runtimes of their own.
+     */
+    public static V8 createV8Runtime(final V8RuntimeConfig config) {
+        V8 runtime;
+        synchronized (V8.class) {
+            checkNativeLibraryLoaded();
+            runtime = new V8(config);
+            runtimes.add(runtime);
+        }
+        if (config.getSnapshot() != null) {
+            try {
+                config.getSnapshot().apply(runtime);
+            } catch (RuntimeException e) {
+                runtime.release(false);
+                throw e;
+            }
         }
-        V8 runtime = new V8(globalAlias);
-        runtimes.add(runtime);
         return runtime;
     }
 
@@ -84,13 +161,21 @@ public class V8 extends V8Object {
     }
 
     protected V8() {
-        this(null);
+        this((String) null);
     }
 
     protected V8(final String globalAlias) {
+        this(new V8RuntimeConfig().setGlobalAlias(globalAlias));
+    }
+
+    protected V8(final V8RuntimeConfig config) {
         checkThread();
-        v8RuntimeHandle = v8InstanceCounter++;
-        _createIsolate(v8RuntimeHandle, globalAlias);
+        synchronized (V8.class) {
+            v8RuntimeHandle = runtimeHandles.allocate();
+        }
+        heapLimitHandler = config.getHeapLimitHandler();
+        _createIsolate(v8RuntimeHandle, config.getGlobalAlias(), config.getMaxYoungSpaceSize(), config.getMaxOldSpaceSize(),
+                config.getMaxExecutableSize(), config.getStackLimit(), heapLimitHandler == null ? 0 : config.getHeapLimitThreshold());
     }
 
     public boolean enableDebugSupport(final int port, final boolean waitForConnection) {
@@ -111,14 +196,25 @@ public class V8 extends V8Object {
         debugEnabled = false;
     }
 
+    /**
+     * Processes the pending debug messages of all runtimes owned by the
+     * calling thread.
+     */
     public static void processDebugMessages() {
-        checkThread();
-        for (V8 v8 : runtimes) {
+        List<V8> owned = new ArrayList<>();
+        synchronized (V8.class) {
+            for (V8 v8 : runtimes) {
+                if (v8.thread == Thread.currentThread()) {
+                    owned.add(v8);
+                }
+            }
+        }
+        for (V8 v8 : owned) {
             v8._processDebugMessages(v8.getV8RuntimeHandle());
         }
     }
 
-    public static int getActiveRuntimes() {
+    public synchronized static int getActiveRuntimes() {
         return runtimes.size();
     }
 
@@ -137,23 +233,643 @@ public class V8 extends V8Object {
 
     public void release(final boolean reportMemoryLeaks) {
         checkThread();
+        if (released) {
+            return;
+        }
+        released = true;
         if (debugEnabled) {
             disableDebugSupport();
         }
-        runtimes.remove(this);
+        synchronized (V8.class) {
+            runtimes.remove(this);
+        }
+        releasePromises("Runtime released");
+        releaseSharedBuffers();
+        for (V8ValueReference reference : valueReferences) {
+            reference.clear();
+        }
+        valueReferences.clear();
+        releaseQueue = null;
         _releaseRuntime(v8RuntimeHandle);
+        synchronized (V8.class) {
+            runtimeHandles.release(v8RuntimeHandle);
+        }
         if (reportMemoryLeaks && (objectReferences > 0)) {
-            throw new IllegalStateException(objectReferences + " Object(s) still exist in runtime");
+            throw new IllegalStateException(objectReferences + " Object(s) still exist in runtime" + getAllocationReport());
+        }
+    }
+
+    /**
+     * Discards all state scripts and Java left in this runtime while keeping
+     * the isolate, its heap and its compiled code. The context is replaced
+     * with a fresh one, registered Java callbacks are removed and every
+     * V8Object, V8Array and V8Context created before the reset counts as
+     * released. Open memory scopes are closed without releasing anything.
+     * Pending microtasks of the previous scripts run before the reset, while
+     * their callbacks still exist; pending Java tasks are dropped. GC
+     * listeners are removed and the execution timeout and microtask mode go
+     * back to their defaults, so nothing set up for one user of the runtime
+     * carries over to the next. The heap limit handler is part of the
+     * runtime configuration and is kept.
+     */
+    public void reset() {
+        checkThread();
+        if (released) {
+            throw new IllegalStateException("Runtime released");
+        }
+        if (executionDepth > 0) {
+            throw new IllegalStateException("Cannot reset a runtime while it is executing");
+        }
+        enterExecution();
+        try {
+            _runMicrotasks(v8RuntimeHandle);
+        } finally {
+            exitExecution(false);
+        }
+        releasePromises("Runtime reset");
+        releaseSharedBuffers();
+        if (!gcListeners.isEmpty()) {
+            gcListeners.clear();
+            _setGCCallbacks(v8RuntimeHandle, false);
+        }
+        executionTimeout = 0;
+        autoRunMicrotasks = true;
+        for (V8MemoryScope scope : memoryScopes) {
+            scope.invalidate();
+        }
+        memoryScopes.clear();
+        for (V8ValueReference reference : valueReferences) {
+            reference.clear();
+        }
+        valueReferences.clear();
+        if (releaseQueue != null) {
+            releaseQueue = new ReferenceQueue<>();
+        }
+        identityWrappers.clear();
+        allocationSites.clear();
+        functions.clear();
+        objectReferences = 0;
+        objectHandles = new HandleAllocator(1);
+        currentEpoch++;
+        epoch = currentEpoch;
+        _resetRuntime(v8RuntimeHandle);
+    }
+
+    /**
+     * Records the creation stack of every n-th V8Object or V8Array created on
+     * this runtime, so unreleased values can be traced back to where they
+     * were created. An interval of 1 samples every value, 0 disables the
+     * sampling. Sampled values that are still alive are listed by
+     * {@link #getAllocationSites()} and in the message of the exception
+     * thrown by {@link #release(boolean)}.
+     */
+    public void setAllocationSampling(final int interval) {
+        checkThread();
+        if (interval < 0) {
+            throw new IllegalArgumentException("Sampling interval must not be negative: " + interval);
+        }
+        allocationSampling = interval;
+        allocationCountdown = interval;
+    }
+
+    public int getAllocationSampling() {
+        return allocationSampling;
+    }
+
+    /**
+     * Returns the call sites of the sampled values that are still alive,
+     * with the site holding the most values first.
+     */
+    public List<V8AllocationSite> getAllocationSites() {
+        checkThread();
+        List<V8AllocationSite> result = new ArrayList<>(allocationSites.size());
+        for (V8AllocationSite site : allocationSites.values()) {
+            result.add(new V8AllocationSite(site));
+        }
+        Collections.sort(result, new Comparator<V8AllocationSite>() {
+            @Override
+            public int compare(final V8AllocationSite site1, final V8AllocationSite site2) {
+                return site2.getLiveCount() - site1.getLiveCount();
+            }
+        });
+        return result;
+    }
+
+    private String getAllocationReport() {
+        if (allocationSites.isEmpty()) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(", sampled allocation sites:");
+        for (V8AllocationSite site : getAllocationSites()) {
+            result.append('\n').append(site);
+        }
+        return result.toString();
+    }
+
+    private void sampleAllocation(final V8Value value) {
+        StackTraceElement[] stackTrace = new Throwable().getStackTrace();
+        int start = 0;
+        while ((start < stackTrace.length) && isInternalFrame(stackTrace[start])) {
+            start++;
+        }
+        StackTraceElement[] callSite = new StackTraceElement[Math.min(stackTrace.length - start, MAX_ALLOCATION_STACK_DEPTH)];
+        System.arraycopy(stackTrace, start, callSite, 0, callSite.length);
+        V8AllocationSite key = new V8AllocationSite(value.getClass().getSimpleName(), callSite);
+        V8AllocationSite site = allocationSites.get(key);
+        if (site == null) {
+            site = key;
+            allocationSites.put(site, site);
+        }
+        site.liveCount++;
+        value.allocationSite = site;
+    }
+
+    private static boolean isInternalFrame(final StackTraceElement element) {
+        String className = element.getClassName();
+        return className.equals(V8.class.getName()) || className.equals(V8Value.class.getName())
+                || className.equals(V8Object.class.getName()) || className.equals(V8Array.class.getName());
+    }
+
+    private void releaseAllocationSite(final V8AllocationSite site) {
+        if (--site.liveCount == 0) {
+            allocationSites.remove(site);
+        }
+    }
+
+    /**
+     * Enables or disables automatic release of V8Objects and V8Arrays that
+     * become unreachable without being released. Values created while the
+     * mode is enabled are tracked through phantom references, and the ones
+     * the Java GC found unreachable are released in a batch at the next
+     * script execution or when {@link #releaseCollectedValues()} is called.
+     */
+    public void setAutoRelease(final boolean autoRelease) {
+        checkThread();
+        if (autoRelease && (releaseQueue == null)) {
+            releaseQueue = new ReferenceQueue<>();
+        } else if (!autoRelease) {
+            releaseCollectedValues();
+            releaseQueue = null;
+        }
+    }
+
+    public boolean isAutoRelease() {
+        return releaseQueue != null;
+    }
+
+    /**
+     * Releases the native handles of all tracked values that became
+     * unreachable and returns how many were released.
+     */
+    public int releaseCollectedValues() {
+        checkThread();
+        if (valueReferences.isEmpty()) {
+            return 0;
+        }
+        int[] handles = null;
+        int count = 0;
+        V8ValueReference reference;
+        while ((releaseQueue != null) && ((reference = (V8ValueReference) releaseQueue.poll()) != null)) {
+            if (!valueReferences.remove(reference)) {
+                continue;
+            }
+            if (handles == null) {
+                handles = new int[Math.max(16, valueReferences.size() + 1)];
+            } else if (count == handles.length) {
+                int[] grown = new int[handles.length * 2];
+                System.arraycopy(handles, 0, grown, 0, count);
+                handles = grown;
+            }
+            handles[count++] = reference.handle;
+            if (reference.allocationSite != null) {
+                releaseAllocationSite(reference.allocationSite);
+            }
+            reference.clear();
+        }
+        if (count > 0) {
+            releaseHandles(handles, count);
+            objectReferences -= count;
+            autoReleasedCount += count;
+        }
+        return count;
+    }
+
+    public long getAutoReleasedCount() {
+        return autoReleasedCount;
+    }
+
+    /**
+     * Enables or disables the identity cache. While enabled,
+     * {@link V8Object#getObject(String)} and {@link V8Array#getObject(int)}
+     * return the already existing V8Object if the same JavaScript object was
+     * fetched before and its wrapper is still alive. Each returned reference
+     * must still be released; the wrapper is released with the last one.
+     * References handed out inside the same {@link V8MemoryScope} are
+     * released together when the scope is closed. The cache holds the
+     * wrappers weakly, so it does not keep them from being auto-released.
+     */
+    public void setIdentityCache(final boolean identityCache) {
+        checkThread();
+        this.identityCache = identityCache;
+    }
+
+    public boolean isIdentityCache() {
+        return identityCache;
+    }
+
+    /**
+     * Tells V8 that memory held on behalf of JavaScript objects, for example
+     * buffers owned by Java, has grown or shrunk by the given number of
+     * bytes. Returns the total amount reported this way.
+     */
+    public long adjustExternalMemory(final long delta) {
+        checkThread();
+        return _adjustExternalMemory(v8RuntimeHandle, delta);
+    }
+
+    public V8NativeMemoryUsage getNativeMemoryUsage() {
+        checkThread();
+        long[] values = new long[V8NativeMemoryUsage.FIELDS];
+        _getNativeMemoryUsage(v8RuntimeHandle, values);
+        return new V8NativeMemoryUsage(values);
+    }
+
+    public V8HeapStatistics getHeapStatistics() {
+        checkThread();
+        long[] values = new long[V8HeapStatistics.FIELDS];
+        _getHeapStatistics(v8RuntimeHandle, values);
+        return new V8HeapStatistics(values);
+    }
+
+    /**
+     * Tells V8 that the runtime is idle for about the given time, so it can
+     * do garbage collection work that would otherwise happen during a later
+     * call. Returns true once V8 has no more idle work to do; until then the
+     * embedder should keep calling this while the runtime stays idle.
+     */
+    public boolean idleNotification(final int idleTimeInMs) {
+        checkThread();
+        if (idleTimeInMs <= 0) {
+            throw new IllegalArgumentException("Idle time must be positive: " + idleTimeInMs);
+        }
+        return _idleNotification(v8RuntimeHandle, idleTimeInMs);
+    }
+
+    /**
+     * Tells V8 that the process is low on memory. V8 runs full garbage
+     * collections until no more memory can be freed, which can take a while.
+     */
+    public void lowMemoryNotification() {
+        checkThread();
+        _lowMemoryNotification(v8RuntimeHandle);
+    }
+
+    public void addGCListener(final GCListener listener) {
+        checkThread();
+        if (gcListeners.isEmpty()) {
+            _setGCCallbacks(v8RuntimeHandle, true);
+        }
+        gcListeners.add(listener);
+    }
+
+    public void removeGCListener(final GCListener listener) {
+        checkThread();
+        if (gcListeners.remove(listener) && gcListeners.isEmpty()) {
+            _setGCCallbacks(v8RuntimeHandle, false);
+        }
+    }
+
+    /**
+     * Limits how long a single call into JavaScript on this runtime may run.
+     * When a script or function started from Java is still running after
+     * the given number of milliseconds, a shared watchdog thread terminates
+     * it and the call throws a {@link V8ScriptTerminatedException}. Nested
+     * calls made from Java callbacks count towards the outermost call. The
+     * timeout is read when a call starts, so it can be changed between calls
+     * to give individual calls their own deadline. 0 disables the limit.
+     */
+    public void setExecutionTimeout(final long timeout) {
+        checkThread();
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Invalid execution timeout: " + timeout);
+        }
+        executionTimeout = timeout;
+    }
+
+    public long getExecutionTimeout() {
+        return executionTimeout;
+    }
+
+    /**
+     * Terminates the JavaScript currently running on this runtime. May be
+     * called from any thread; does nothing when no script is running. The
+     * interrupted call throws a {@link V8ScriptTerminatedException} and the
+     * runtime can be used again afterwards.
+     */
+    public void terminateExecution() {
+        V8Watchdog.terminate(this);
+    }
+
+    void enterExecution() {
+        if (executionDepth++ == 0) {
+            V8Watchdog.enter(this, executionTimeout);
+        }
+    }
+
+    void exitExecution() {
+        exitExecution(autoRunMicrotasks);
+    }
+
+    private void exitExecution(final boolean runMicrotasks) {
+        try {
+            if (runMicrotasks && (executionDepth == 1)) {
+                Runnable task;
+                while ((task = pendingTasks.poll()) != null) {
+                    task.run();
+                }
+                _runMicrotasks(v8RuntimeHandle);
+            }
+        } finally {
+            if ((--executionDepth == 0) && V8Watchdog.exit(this)) {
+                _cancelTerminateExecution(v8RuntimeHandle);
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks posted to this runtime, such as the completion of
+     * futures handed to {@link #toPromise(V8Future)}, followed by the pending
+     * microtasks, for example Promise reactions. Unless disabled with
+     * {@link #setAutoRunMicrotasks(boolean)} this happens after every call
+     * into JavaScript, so it only needs to be called while the runtime is
+     * otherwise idle.
+     */
+    public void runMicrotasks() {
+        checkThread();
+        enterExecution();
+        exitExecution(true);
+    }
+
+    public void setAutoRunMicrotasks(final boolean autoRunMicrotasks) {
+        checkThread();
+        this.autoRunMicrotasks = autoRunMicrotasks;
+    }
+
+    public boolean isAutoRunMicrotasks() {
+        return autoRunMicrotasks;
+    }
+
+    /**
+     * Queues a task to run on the runtime thread the next time microtasks
+     * run. May be called from any thread.
+     */
+    void postTask(final Runnable task) {
+        pendingTasks.add(task);
+        V8EventLoop loop = eventLoop;
+        if (loop != null) {
+            loop.wakeUp();
+        }
+    }
+
+    /**
+     * Returns a future that completes once the given Promise, or thenable,
+     * settles. A fulfilled future holds the value as Integer, Double,
+     * Boolean, String, V8Array or V8Object, which the caller then owns; a
+     * rejected future fails with a {@link V8PromiseRejectedException}.
+     */
+    public V8Future<Object> toFuture(final V8Object promise) {
+        checkThread();
+        int id = promiseCounter++;
+        V8Future<Object> result = new V8Future<>();
+        promiseFutures.put(id, result);
+        V8Array parameters = new V8Array(this).push(promise).push(id);
+        try {
+            getPromiseHelper().executeVoidFunction("attach", parameters);
+        } catch (RuntimeException e) {
+            promiseFutures.remove(id);
+            throw e;
+        } finally {
+            parameters.release();
+        }
+        return result;
+    }
+
+    /**
+     * Returns a Promise that settles with the given future. The future may
+     * be completed from any thread; the promise settles on the runtime
+     * thread the next time microtasks run. Its value has to be null, a
+     * Number, Boolean, String or V8Value. The caller owns the returned
+     * promise.
+     */
+    public <T> V8Object toPromise(final V8Future<T> future) {
+        checkThread();
+        final V8Object deferred = getPromiseHelper().executeObjectFunction("defer", null);
+        if (deferred.memoryScope != null) {
+            deferred.memoryScope.detach(deferred);
+        }
+        V8Object result;
+        try {
+            result = deferred.getObject("promise");
+        } catch (RuntimeException e) {
+            deferred.release();
+            throw e;
+        }
+        pendingDeferreds.add(deferred);
+        future.addListener(new V8Future.Listener<T>() {
+
+            @Override
+            public void completed(final V8Future<T> completed) {
+                postTask(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        settleDeferred(deferred, completed);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+
+    private V8Object getPromiseHelper() {
+        if ((promiseHelper == null) || promiseHelper.isReleased()) {
+            promiseHelper = executeObjectScript(PROMISE_HELPER);
+            if (promiseHelper.memoryScope != null) {
+                promiseHelper.memoryScope.detach(promiseHelper);
+            }
+            promiseHelper.registerJavaMethod(new JavaVoidCallback() {
+
+                @Override
+                public void invoke(final V8Array parameters) {
+                    settleFuture(parameters);
+                }
+            }, "settle");
+        }
+        return promiseHelper;
+    }
+
+    private void settleFuture(final V8Array parameters) {
+        V8Future<Object> future = promiseFutures.remove(parameters.getInteger(0));
+        Object value = getArrayItem(parameters, 2);
+        if (future == null) {
+            if (value instanceof V8Value) {
+                ((V8Value) value).release();
+            }
+        } else if (parameters.getBoolean(1)) {
+            future.complete(value);
+        } else {
+            String message = String.valueOf(value);
+            if (value instanceof V8Value) {
+                ((V8Value) value).release();
+            }
+            future.completeExceptionally(new V8PromiseRejectedException(message));
+        }
+    }
+
+    private void settleDeferred(final V8Object deferred, final V8Future<?> future) {
+        if (!pendingDeferreds.remove(deferred)) {
+            return;
+        }
+        V8Array parameters = new V8Array(this);
+        try {
+            Throwable error = future.getError();
+            if (error == null) {
+                pushValue(parameters, future.getValue());
+                deferred.executeVoidFunction("resolve", parameters);
+            } else {
+                parameters.push(error.getMessage() != null ? error.getMessage() : error.toString());
+                deferred.executeVoidFunction("reject", parameters);
+            }
+        } finally {
+            parameters.release();
+            deferred.release();
+        }
+    }
+
+    private static void pushValue(final V8Array array, final Object value) {
+        if (value == null) {
+            array.pushUndefined();
+        } else if (value instanceof Integer) {
+            array.push((Integer) value);
+        } else if (value instanceof Number) {
+            array.push(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            array.push((Boolean) value);
+        } else if (value instanceof String) {
+            array.push((String) value);
+        } else if (value instanceof V8Value) {
+            array.push((V8Value) value);
+        } else {
+            throw new IllegalArgumentException("Unsupported value: " + value.getClass());
+        }
+    }
+
+    private void releasePromises(final String reason) {
+        for (V8Future<Object> future : promiseFutures.values()) {
+            future.completeExceptionally(new V8RuntimeException(reason));
+        }
+        promiseFutures.clear();
+        for (V8Object deferred : pendingDeferreds) {
+            deferred.release();
+        }
+        pendingDeferreds.clear();
+        if (promiseHelper != null) {
+            promiseHelper.release();
+            promiseHelper = null;
+        }
+        pendingTasks.clear();
+    }
+
+    V8Object attachSharedBuffer(final V8SharedBuffer buffer) {
+        checkThread();
+        checkReleaesd();
+        if ((atomics == null) || atomics.isReleased()) {
+            atomics = V8SharedBuffer.createAtomics(this, sharedBuffers);
+            if (atomics.memoryScope != null) {
+                atomics.memoryScope.detach(atomics);
+            }
+        }
+        int id = sharedBuffers.indexOf(buffer);
+        if (id < 0) {
+            id = sharedBuffers.size();
+            sharedBuffers.add(buffer);
+        }
+        V8Object result = new V8Object(this, false);
+        try {
+            result.released = false;
+            v8.addObjRef(result);
+            _createArrayBuffer(getV8RuntimeHandle(), buffer.getMemory(), result.getHandle());
+            V8Array parameters = new V8Array(this).push(result).push(id);
+            try {
+                atomics.executeVoidFunction("register", parameters);
+            } finally {
+                parameters.release();
+            }
+        } catch (Exception e) {
+            result.release();
+            throw e;
+        }
+        return result;
+    }
+
+    private void releaseSharedBuffers() {
+        sharedBuffers.clear();
+        if (atomics != null) {
+            atomics.release();
+            atomics = null;
         }
     }
 
+    /**
+     * Makes the given context, or the runtime's own context for null, the
+     * one scripts are compiled and run in and returns the previously active
+     * context, which has to be passed to {@link #exitScript(V8Context)}.
+     * Values found unreachable by the Java GC are released first.
+     */
+    V8Context enterScript(final V8Context context) {
+        releaseCollectedValues();
+        V8Context previous = activeContext;
+        if (previous != context) {
+            activateContext(context);
+        }
+        if (context != null) {
+            context.entered++;
+        }
+        enterExecution();
+        return previous;
+    }
+
+    void exitScript(final V8Context previous) {
+        exitExecution();
+        if (activeContext != null) {
+            activeContext.entered--;
+        }
+        if (activeContext != previous) {
+            activateContext(previous);
+        }
+    }
+
+    private void activateContext(final V8Context context) {
+        _setContext(v8RuntimeHandle, context == null ? 0 : context.getHandle());
+        activeContext = context;
+    }
+
     public int executeIntScript(final String script) {
         return executeIntScript(script, null, 0);
     }
 
     public int executeIntScript(final String script, final String scriptName, final int lineNumber) {
+        return executeIntScript(null, script, scriptName, lineNumber);
+    }
+
+    int executeIntScript(final V8Context context, final String script, final String scriptName, final int lineNumber) {
         checkThread();
-        return _executeIntScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        V8Context previous = enterScript(context);
+        try {
+            return _executeIntScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        } finally {
+            exitScript(previous);
+        }
     }
 
     public double executeDoubleScript(final String script) {
@@ -161,8 +877,17 @@ public class V8 extends V8Object {
     }
 
     public double executeDoubleScript(final String script, final String scriptName, final int lineNumber) {
+        return executeDoubleScript(null, script, scriptName, lineNumber);
+    }
+
+    double executeDoubleScript(final V8Context context, final String script, final String scriptName, final int lineNumber) {
         checkThread();
-        return _executeDoubleScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        V8Context previous = enterScript(context);
+        try {
+            return _executeDoubleScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        } finally {
+            exitScript(previous);
+        }
     }
 
     public String executeStringScript(final String script) {
@@ -170,8 +895,17 @@ public class V8 extends V8Object {
     }
 
     public String executeStringScript(final String script, final String scriptName, final int lineNumber) {
+        return executeStringScript(null, script, scriptName, lineNumber);
+    }
+
+    String executeStringScript(final V8Context context, final String script, final String scriptName, final int lineNumber) {
         checkThread();
-        return _executeStringScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        V8Context previous = enterScript(context);
+        try {
+            return _executeStringScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        } finally {
+            exitScript(previous);
+        }
     }
 
     public boolean executeBooleanScript(final String script) {
@@ -179,8 +913,17 @@ public class V8 extends V8Object {
     }
 
     public boolean executeBooleanScript(final String script, final String scriptName, final int lineNumber) {
+        return executeBooleanScript(null, script, scriptName, lineNumber);
+    }
+
+    boolean executeBooleanScript(final V8Context context, final String script, final String scriptName, final int lineNumber) {
         checkThread();
-        return _executeBooleanScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        V8Context previous = enterScript(context);
+        try {
+            return _executeBooleanScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        } finally {
+            exitScript(previous);
+        }
     }
 
     public V8Array executeArrayScript(final String script) {
@@ -188,15 +931,22 @@ public class V8 extends V8Object {
     }
 
     public V8Array executeArrayScript(final String script, final String scriptName, final int lineNumber) {
+        return executeArrayScript(null, script, scriptName, lineNumber);
+    }
+
+    V8Array executeArrayScript(final V8Context context, final String script, final String scriptName, final int lineNumber) {
         checkThread();
         V8Array result = new V8Array(this, false);
+        V8Context previous = enterScript(context);
         try {
             result.released = false;
-            v8.addObjRef();
+            v8.addObjRef(result);
             _executeArrayScript(getV8RuntimeHandle(), script, result.getHandle(), scriptName, lineNumber);
         } catch (Exception e) {
             result.release();
             throw e;
+        } finally {
+            exitScript(previous);
         }
         return result;
     }
@@ -206,8 +956,17 @@ public class V8 extends V8Object {
     }
 
     public Object executeScript(final String script, final String scriptName, final int lineNumber) {
+        return executeScript(null, script, scriptName, lineNumber);
+    }
+
+    Object executeScript(final V8Context context, final String script, final String scriptName, final int lineNumber) {
         checkThread();
-        return _executeScript(getV8RuntimeHandle(), script, scriptName, lineNumber);
+        V8Context previous = enterScript(context);
+        try {
+            return _executeScript(getV8RuntimeHandle(), script, scriptName, lineNumber);
+        } finally {
+            exitScript(previous);
+        }
     }
 
     public V8Object executeObjectScript(final String script) {
@@ -215,30 +974,204 @@ public class V8 extends V8Object {
     }
 
     public V8Object executeObjectScript(final String script, final String scriptName, final int lineNumber) {
+        return executeObjectScript(null, script, scriptName, lineNumber);
+    }
+
+    V8Object executeObjectScript(final V8Context context, final String script, final String scriptName, final int lineNumber) {
         checkThread();
         V8Object result = new V8Object(this, false);
+        V8Context previous = enterScript(context);
         try {
             result.released = false;
-            v8.addObjRef();
+            v8.addObjRef(result);
             _executeObjectScript(getV8RuntimeHandle(), script, result.getHandle(), scriptName, lineNumber);
         } catch (Exception e) {
             result.release();
             throw e;
+        } finally {
+            exitScript(previous);
         }
         return result;
     }
 
+    public V8Object decodeObject(final ByteBuffer buffer) {
+        checkThread();
+        ByteBuffer encoded = toDirectBuffer(buffer);
+        V8Object result = new V8Object(this, false);
+        try {
+            result.released = false;
+            v8.addObjRef(result);
+            _decodeObject(getV8RuntimeHandle(), encoded, encoded.position(), encoded.remaining(), result.getHandle());
+        } catch (Exception e) {
+            result.release();
+            throw e;
+        }
+        return result;
+    }
+
+    public V8Array decodeArray(final ByteBuffer buffer) {
+        checkThread();
+        ByteBuffer encoded = toDirectBuffer(buffer);
+        V8Array result = new V8Array(this, false);
+        try {
+            result.released = false;
+            v8.addObjRef(result);
+            _decodeArray(getV8RuntimeHandle(), encoded, encoded.position(), encoded.remaining(), result.getHandle());
+        } catch (Exception e) {
+            result.release();
+            throw e;
+        }
+        return result;
+    }
+
+    public V8Object parseJson(final ByteBuffer utf8) {
+        checkThread();
+        ByteBuffer json = toDirectBuffer(utf8);
+        enterExecution();
+        try {
+            return (V8Object) _parseJson(getV8RuntimeHandle(), json, json.position(), json.remaining());
+        } finally {
+            exitExecution(false);
+        }
+    }
+
+    /**
+     * Serializes the object to JSON with the original JSON.stringify. The
+     * result shares a scratch buffer, so microtasks are left to the next
+     * call rather than run before the caller consumed it.
+     */
+    ByteBuffer toJson(final V8Object object) {
+        if (jsonBuffer == null) {
+            jsonBuffer = ByteBuffer.allocateDirect(JSON_BUFFER_SIZE);
+        }
+        ByteBuffer result = jsonBuffer;
+        int length;
+        enterExecution();
+        try {
+            length = _toJson(getV8RuntimeHandle(), object.getHandle(), result, 0, result.capacity());
+            if (length > result.capacity()) {
+                result = growScratchBuffer(result, length);
+                _takeSerialized(getV8RuntimeHandle(), result, 0, result.capacity());
+            }
+        } finally {
+            exitExecution(false);
+        }
+        if (result.capacity() <= MAX_SCRATCH_BUFFER_SIZE) {
+            jsonBuffer = result;
+        }
+        result = result.duplicate();
+        result.limit(length);
+        return result;
+    }
+
+    int toJson(final V8Object object, final ByteBuffer buffer) {
+        enterExecution();
+        try {
+            int length = _toJson(getV8RuntimeHandle(), object.getHandle(), buffer, buffer.position(), buffer.remaining());
+            if (length > buffer.remaining()) {
+                _takeSerialized(getV8RuntimeHandle(), null, 0, 0);
+            }
+            return length;
+        } finally {
+            exitExecution(false);
+        }
+    }
+
+    /**
+     * Creates the object or array serialized with {@link V8Object#serialize()},
+     * usually by another runtime, in this runtime.
+     */
+    public V8Object deserialize(final ByteBuffer buffer) {
+        checkThread();
+        ByteBuffer serialized = toDirectBuffer(buffer);
+        return (V8Object) _deserialize(getV8RuntimeHandle(), serialized, serialized.position(), serialized.remaining());
+    }
+
+    ByteBuffer serialize(final V8Object object) {
+        if (serializeBuffer == null) {
+            serializeBuffer = ByteBuffer.allocateDirect(JSON_BUFFER_SIZE);
+        }
+        ByteBuffer result = serializeBuffer;
+        int length = _serialize(getV8RuntimeHandle(), object.getHandle(), result, 0, result.capacity());
+        if (length > result.capacity()) {
+            result = growScratchBuffer(result, length);
+            _takeSerialized(getV8RuntimeHandle(), result, 0, result.capacity());
+            if (result.capacity() <= MAX_SCRATCH_BUFFER_SIZE) {
+                serializeBuffer = result;
+            }
+        }
+        result = result.duplicate();
+        result.limit(length);
+        return result;
+    }
+
+    /**
+     * Scratch buffers grow up to MAX_SCRATCH_BUFFER_SIZE and are reused,
+     * larger contents get a buffer of their own that is not kept.
+     */
+    private ByteBuffer growScratchBuffer(final ByteBuffer buffer, final int length) {
+        if (length > MAX_SCRATCH_BUFFER_SIZE) {
+            return ByteBuffer.allocateDirect(length);
+        }
+        return ByteBuffer.allocateDirect(Math.min(MAX_SCRATCH_BUFFER_SIZE, Math.max(length, buffer.capacity() * 2)));
+    }
+
+    private ByteBuffer toDirectBuffer(final ByteBuffer buffer) {
+        if (buffer.isDirect()) {
+            return buffer;
+        }
+        int length = buffer.remaining();
+        ByteBuffer result;
+        if (scratchBuffer == null) {
+            scratchBuffer = ByteBuffer.allocateDirect(Math.min(MAX_SCRATCH_BUFFER_SIZE, Math.max(length, JSON_BUFFER_SIZE)));
+        }
+        if (length <= scratchBuffer.capacity()) {
+            result = scratchBuffer;
+        } else {
+            result = growScratchBuffer(scratchBuffer, length);
+            if (result.capacity() <= MAX_SCRATCH_BUFFER_SIZE) {
+                scratchBuffer = result;
+            }
+        }
+        result.clear();
+        result.put(buffer.duplicate());
+        result.flip();
+        return result;
+    }
+
     public void executeVoidScript(final String script) {
         this.executeVoidScript(script, null, 0);
     }
 
     public void executeVoidScript(final String script, final String scriptName, final int lineNumber) {
+        executeVoidScript(null, script, scriptName, lineNumber);
+    }
+
+    void executeVoidScript(final V8Context context, final String script, final String scriptName, final int lineNumber) {
         checkThread();
-        _executeVoidScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        V8Context previous = enterScript(context);
+        try {
+            _executeVoidScript(v8RuntimeHandle, script, scriptName, lineNumber);
+        } finally {
+            exitScript(previous);
+        }
     }
 
-    static void checkThread() {
-        if ((thread != null) && (thread != Thread.currentThread())) {
+    byte[] executeSnapshotScript(final ByteBuffer source, final String scriptName, final ByteBuffer compileData) {
+        V8Context previous = enterScript(null);
+        try {
+            if (compileData == null) {
+                return _executeSnapshotScript(v8RuntimeHandle, source, source.position(), source.remaining(), scriptName, null, 0, 0);
+            }
+            return _executeSnapshotScript(v8RuntimeHandle, source, source.position(), source.remaining(), scriptName, compileData,
+                    compileData.position(), compileData.remaining());
+        } finally {
+            exitScript(previous);
+        }
+    }
+
+    void checkThread() {
+        if (thread != Thread.currentThread()) {
             throw new Error("Invalid V8 thread access.");
         }
     }
@@ -321,6 +1254,41 @@ public class V8 extends V8Object {
         throw new V8RuntimeException("Unknown return type: " + result.getClass());
     }
 
+    protected void gcStarted(final int type) {
+        for (GCListener listener : gcListeners) {
+            listener.gcStarted(this, type);
+        }
+    }
+
+    protected void gcFinished(final int type, final long pauseMicros) {
+        for (GCListener listener : gcListeners) {
+            listener.gcFinished(this, type, pauseMicros);
+        }
+    }
+
+    /**
+     * Called from the garbage collector once the heap grew above the
+     * threshold. A termination asked for by the handler, or caused by a
+     * failing handler, goes through the watchdog: it only hits a call that
+     * is running and is cancelled when that call returns, so a collection
+     * outside of JavaScript never terminates the next call.
+     */
+    protected boolean nearHeapLimit(final long usedHeapSize, final long heapSizeLimit) {
+        if (heapLimitHandler == null) {
+            return false;
+        }
+        boolean terminate;
+        try {
+            terminate = heapLimitHandler.nearHeapLimit(this, usedHeapSize, heapSizeLimit);
+        } catch (RuntimeException e) {
+            terminate = true;
+        }
+        if (terminate) {
+            V8Watchdog.terminate(this);
+        }
+        return terminate;
+    }
+
     protected void callVoidJavaMethod(final int methodID, final V8Array parameters) throws Throwable {
         MethodDescriptor methodDescriptor = functions.get(methodID);
         if (methodDescriptor.voidCallback != null) {
@@ -420,7 +1388,34 @@ public class V8 extends V8Object {
 
     protected native void _releaseRuntime(int v8RuntimeHandle);
 
-    protected native void _createIsolate(int v8RuntimeHandle, String globalAlias);
+    protected native void _resetRuntime(int v8RuntimeHandle);
+
+    protected native void _releaseHandles(int v8RuntimeHandle, int[] handles, int count);
+
+    protected native long _adjustExternalMemory(int v8RuntimeHandle, long delta);
+
+    protected native void _getNativeMemoryUsage(int v8RuntimeHandle, long[] result);
+
+    protected native void _getHeapStatistics(int v8RuntimeHandle, long[] result);
+
+    protected native void _setGCCallbacks(int v8RuntimeHandle, boolean enabled);
+
+    protected native void _terminateExecution(int v8RuntimeHandle);
+
+    protected native void _runMicrotasks(int v8RuntimeHandle);
+
+    protected native boolean _idleNotification(int v8RuntimeHandle, int idleTimeInMs);
+
+    protected native void _lowMemoryNotification(int v8RuntimeHandle);
+
+    protected native void _createContext(int v8RuntimeHandle, int resultHandle);
+
+    protected native void _setContext(int v8RuntimeHandle, int globalHandle);
+
+    protected native void _cancelTerminateExecution(int v8RuntimeHandle);
+
+    protected native void _createIsolate(int v8RuntimeHandle, String globalAlias, int maxYoungSpaceSize, int maxOldSpaceSize,
+            int maxExecutableSize, int stackLimit, int heapLimitThreshold);
 
     protected native int _executeIntScript(int v8RuntimeHandle, final String script, final String scriptName,
             final int lineNumber);
@@ -445,6 +1440,9 @@ public class V8 extends V8Object {
     protected native void _executeArrayScript(int v8RuntimeHandle, String script, int resultHandle,
             final String scriptName, final int lineNumber);
 
+    protected native byte[] _executeSnapshotScript(int v8RuntimeHandle, ByteBuffer source, int offset, int length,
+            String scriptName, ByteBuffer compileData, int compileDataOffset, int compileDataLength);
+
     protected native void _release(int v8RuntimeHandle, int objectHandle);
 
     protected native boolean _contains(int v8RuntimeHandle, int objectHandle, final String key);
@@ -461,6 +1459,9 @@ public class V8 extends V8Object {
 
     protected native void _getArray(int v8RuntimeHandle, int objectHandle, String key, int resultHandle);
 
+    protected native int _getObjectIdentity(int v8RuntimeHandle, final int objectHandle, final String key,
+            final int resultHandle);
+
     protected native void _getObject(int v8RuntimeHandle, final int objectHandle, final String key,
             final int resultObjectHandle);
 
@@ -490,6 +1491,14 @@ public class V8 extends V8Object {
 
     protected native int _identityHash(int v8RuntimeHandle, int objectHandle);
 
+    protected native void _setWeak(int v8RuntimeHandle, int objectHandle);
+
+    protected native void _clearWeak(int v8RuntimeHandle, int objectHandle);
+
+    protected native boolean _isWeak(int v8RuntimeHandle, int objectHandle);
+
+    protected native boolean _isCollected(int v8RuntimeHandle, int objectHandle);
+
     protected native void _add(int v8RuntimeHandle, int objectHandle, final String key, final int value);
 
     protected native void _addObject(int v8RuntimeHandle, int objectHandle, final String key, final int value);
@@ -519,6 +1528,9 @@ public class V8 extends V8Object {
 
     protected native String _arrayGetString(int v8RuntimeHandle, int arrayHandle, int index);
 
+    protected native int _arrayGetObjectIdentity(final int v8RuntimeHandle, final int arrayHandle, final int index,
+            final int resultHandle);
+
     protected native void _arrayGetObject(final int v8RuntimeHandle, final int arrayHandle, final int index,
             final int resultHandle);
 
@@ -568,12 +1580,137 @@ public class V8 extends V8Object {
 
     protected native int _arrayGetStrings(final int v8RuntimeHandle, final int objectHandle, final int index, final int length, String[] resultArray);
 
-    void addObjRef() {
+    protected native Object[] _arrayExtractColumns(final int v8RuntimeHandle, final int arrayHandle, final String[] keys, final int[] types);
+
+    protected native void _decodeObject(int v8RuntimeHandle, ByteBuffer buffer, int offset, int length, int resultHandle);
+
+    protected native void _decodeArray(int v8RuntimeHandle, ByteBuffer buffer, int offset, int length, int resultHandle);
+
+    protected native Object _parseJson(int v8RuntimeHandle, ByteBuffer buffer, int offset, int length);
+
+    protected native int _serialize(int v8RuntimeHandle, int objectHandle, ByteBuffer buffer, int offset, int capacity);
+
+    protected native int _takeSerialized(int v8RuntimeHandle, ByteBuffer buffer, int offset, int capacity);
+
+    protected native Object _deserialize(int v8RuntimeHandle, ByteBuffer buffer, int offset, int length);
+
+    protected native void _createArrayBuffer(int v8RuntimeHandle, ByteBuffer buffer, int resultHandle);
+
+    protected native int _toJson(int v8RuntimeHandle, int objectHandle, ByteBuffer buffer, int offset, int capacity);
+
+    int allocateObjectHandle() {
+        return objectHandles.allocate();
+    }
+
+    void releaseObjectHandle(final int handle) {
+        objectHandles.release(handle);
+    }
+
+    void pushMemoryScope(final V8MemoryScope scope) {
+        memoryScopes.add(scope);
+    }
+
+    void removeMemoryScope(final V8MemoryScope scope) {
+        memoryScopes.remove(scope);
+    }
+
+    V8MemoryScope getParentMemoryScope(final V8MemoryScope scope) {
+        int index = memoryScopes.indexOf(scope);
+        return index > 0 ? memoryScopes.get(index - 1) : null;
+    }
+
+    void addToMemoryScope(final V8Value value) {
+        if (!memoryScopes.isEmpty()) {
+            memoryScopes.get(memoryScopes.size() - 1).add(value);
+        }
+    }
+
+    void releaseHandles(final int[] handles, final int count) {
+        if (count == 0) {
+            return;
+        }
+        _releaseHandles(v8RuntimeHandle, handles, count);
+        for (int i = 0; i < count; i++) {
+            releaseObjectHandle(handles[i]);
+        }
+    }
+
+    void addObjRef(final V8Value value) {
         objectReferences++;
+        if ((allocationSampling > 0) && (--allocationCountdown == 0)) {
+            allocationCountdown = allocationSampling;
+            sampleAllocation(value);
+        }
+        if (releaseQueue != null) {
+            value.reference = new V8ValueReference(value, releaseQueue);
+            valueReferences.add(value.reference);
+        }
+    }
+
+    V8Object internObject(final V8Object result, final int handle) {
+        if (handle == result.objectHandle) {
+            identityWrappers.put(handle, new V8IdentityEntry(result));
+            return result;
+        }
+        V8IdentityEntry cached = identityWrappers.get(handle);
+        V8Object wrapper = cached != null ? cached.get() : null;
+        if (wrapper == null) {
+            // the wrapper became unreachable before its handle was released,
+            // the new wrapper takes the handle over
+            adoptHandle(result, handle, cached);
+            return result;
+        }
+        V8MemoryScope scope = result.memoryScope;
+        result.released = true;
+        if (scope != null) {
+            scope.detach(result);
+        }
+        releaseObjectHandle(result.objectHandle);
+        releaseObjRef(result);
+        if ((scope == null) || (wrapper.memoryScope != scope)) {
+            wrapper.sharedReferences++;
+        }
+        return wrapper;
+    }
+
+    private void adoptHandle(final V8Object result, final int handle, final V8IdentityEntry cached) {
+        V8ValueReference reference = cached != null ? cached.reference : null;
+        if ((reference != null) && (reference != result.reference) && valueReferences.remove(reference)) {
+            reference.clear();
+            if (reference.allocationSite != null) {
+                releaseAllocationSite(reference.allocationSite);
+            }
+        }
+        objectReferences--;
+        releaseObjectHandle(result.objectHandle);
+        result.objectHandle = handle;
+        if (result.reference != null) {
+            result.reference.clear();
+            valueReferences.remove(result.reference);
+            result.reference = null;
+        }
+        if (releaseQueue != null) {
+            result.reference = new V8ValueReference(result, releaseQueue);
+            valueReferences.add(result.reference);
+        }
+        identityWrappers.put(handle, new V8IdentityEntry(result));
     }
 
-    void releaseObjRef() {
+    void releaseObjRef(final V8Value value) {
         objectReferences--;
+        if (value.allocationSite != null) {
+            releaseAllocationSite(value.allocationSite);
+            value.allocationSite = null;
+        }
+        V8IdentityEntry cached = identityWrappers.get(value.objectHandle);
+        if ((cached != null) && ((cached.get() == value) || (cached.get() == null))) {
+            identityWrappers.remove(value.objectHandle);
+        }
+        if (value.reference != null) {
+            value.reference.clear();
+            valueReferences.remove(value.reference);
+            value.reference = null;
+        }
     }
 
 }
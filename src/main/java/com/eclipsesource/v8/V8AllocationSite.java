@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.util.Arrays;
+
+/**
+ * A call site that created V8Objects or V8Arrays, together with the number
+ * of sampled values created there that have not been released yet. See
+ * {@link V8#setAllocationSampling(int)}.
+ */
+public class V8AllocationSite {
+
+    private final String              type;
+    private final StackTraceElement[] stackTrace;
+    int                               liveCount;
+
+    V8AllocationSite(final String type, final StackTraceElement[] stackTrace) {
+        this.type = type;
+        this.stackTrace = stackTrace;
+    }
+
+    V8AllocationSite(final V8AllocationSite site) {
+        this(site.type, site.stackTrace);
+        liveCount = site.liveCount;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public StackTraceElement[] getStackTrace() {
+        return stackTrace.clone();
+    }
+
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof V8AllocationSite)) {
+            return false;
+        }
+        V8AllocationSite other = (V8AllocationSite) obj;
+        return type.equals(other.type) && Arrays.equals(stackTrace, other.stackTrace);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * type.hashCode()) + Arrays.hashCode(stackTrace);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(liveCount).append(" x ").append(type);
+        for (StackTraceElement element : stackTrace) {
+            result.append("\n\tat ").append(element);
+        }
+        return result.toString();
+    }
+
+}
@@ -18,72 +18,72 @@ public class V8Array extends V8Object {
 
     protected V8Array(final V8 v8, final boolean initialize) {
         super(v8, initialize);
-        V8.checkThread();
+        v8.checkThread();
     }
 
     @Override
     protected void initialize(final int runtimeHandle, final int objectHandle) {
         v8._initNewV8Array(runtimeHandle, objectHandle);
-        v8.addObjRef();
+        v8.addObjRef(this);
         released = false;
     }
 
     public int length() {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetSize(v8.getV8RuntimeHandle(), getHandle());
     }
 
     public int getType(final int index) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getType(v8.getV8RuntimeHandle(), getHandle(), index);
     }
 
     public int getType() {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getArrayType(v8.getV8RuntimeHandle(), getHandle());
     }
 
     public int getType(final int index, final int length) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getType(v8.getV8RuntimeHandle(), getHandle(), index, length);
     }
 
     public int getInteger(final int index) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetInteger(v8.getV8RuntimeHandle(), getHandle(), index);
     }
 
     public boolean getBoolean(final int index) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetBoolean(v8.getV8RuntimeHandle(), getHandle(), index);
     }
 
     public double getDouble(final int index) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetDouble(v8.getV8RuntimeHandle(), getHandle(), index);
     }
 
     public String getString(final int index) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetString(v8.getV8RuntimeHandle(), getHandle(), index);
     }
 
     public int[] getInts(final int index, final int length) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetInts(v8.getV8RuntimeHandle(), getHandle(), index, length);
     }
 
     public int getInts(final int index, final int length, final int[] resultArray) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         if (length > resultArray.length) {
             throw new IndexOutOfBoundsException();
@@ -92,13 +92,13 @@ public class V8Array extends V8Object {
     }
 
     public double[] getDoubles(final int index, final int length) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetDoubles(v8.getV8RuntimeHandle(), getHandle(), index, length);
     }
 
     public int getDoubles(final int index, final int length, final double[] resultArray) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         if (length > resultArray.length) {
             throw new IndexOutOfBoundsException();
@@ -107,13 +107,13 @@ public class V8Array extends V8Object {
     }
 
     public boolean[] getBooleans(final int index, final int length) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetBooleans(v8.getV8RuntimeHandle(), getHandle(), index, length);
     }
 
     public int getBooleans(final int index, final int length, final boolean[] resultArray) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         if (length > resultArray.length) {
             throw new IndexOutOfBoundsException();
@@ -122,13 +122,13 @@ public class V8Array extends V8Object {
     }
 
     public String[] getStrings(final int index, final int length) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._arrayGetStrings(v8.getV8RuntimeHandle(), getHandle(), index, length);
     }
 
     public int getStrings(final int index, final int length, final String[] resultArray) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         if (length > resultArray.length) {
             throw new IndexOutOfBoundsException();
@@ -136,6 +136,20 @@ public class V8Array extends V8Object {
         return v8._arrayGetStrings(v8.getV8RuntimeHandle(), getHandle(), index, length, resultArray);
     }
 
+    public Object[] extractColumns(final String[] keys, final int[] types) {
+        v8.checkThread();
+        checkReleaesd();
+        if (keys.length != types.length) {
+            throw new IllegalArgumentException("Number of keys and types must match");
+        }
+        for (int type : types) {
+            if ((type != INTEGER) && (type != DOUBLE) && (type != BOOLEAN) && (type != STRING)) {
+                throw new IllegalArgumentException("Unsupported column type: " + type);
+            }
+        }
+        return v8._arrayExtractColumns(v8.getV8RuntimeHandle(), getHandle(), keys, types);
+    }
+
     public Object get(final int index) {
         int type = getType(index);
         switch (type) {
@@ -156,12 +170,12 @@ public class V8Array extends V8Object {
     }
 
     public V8Array getArray(final int index) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         V8Array result = new V8Array(v8, false);
         try {
             result.released = false;
-            v8.addObjRef();
+            v8.addObjRef(result);
             v8._arrayGetArray(v8.getV8RuntimeHandle(), getHandle(), index, result.getHandle());
         } catch (Exception e) {
             result.release();
@@ -171,56 +185,61 @@ public class V8Array extends V8Object {
     }
 
     public V8Object getObject(final int index) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         V8Object result = new V8Object(v8, false);
+        int handle = 0;
         try {
             result.released = false;
-            v8.addObjRef();
-            v8._arrayGetObject(v8.getV8RuntimeHandle(), getHandle(), index, result.getHandle());
+            v8.addObjRef(result);
+            if (v8.isIdentityCache()) {
+                handle = v8._arrayGetObjectIdentity(v8.getV8RuntimeHandle(), getHandle(), index, result.getHandle());
+            } else {
+                v8._arrayGetObject(v8.getV8RuntimeHandle(), getHandle(), index, result.getHandle());
+            }
         } catch (Exception e) {
             result.release();
             throw e;
         }
-        return result;
+        return v8.isIdentityCache() ? v8.internObject(result, handle) : result;
     }
 
     public V8Array push(final int value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._addArrayIntItem(v8.getV8RuntimeHandle(), getHandle(), value);
         return this;
     }
 
     public V8Array push(final boolean value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._addArrayBooleanItem(v8.getV8RuntimeHandle(), getHandle(), value);
         return this;
     }
 
     public V8Array push(final double value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._addArrayDoubleItem(v8.getV8RuntimeHandle(), getHandle(), value);
         return this;
     }
 
     public V8Array push(final String value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._addArrayStringItem(v8.getV8RuntimeHandle(), getHandle(), value);
         return this;
     }
 
     public V8Array push(final V8Value value) {
-        V8.checkThread();
+        v8.checkThread();
         v8._addArrayObjectItem(v8.getV8RuntimeHandle(), getHandle(), value.getHandle());
         return this;
     }
 
     public V8Array pushUndefined() {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._addArrayUndefinedItem(v8.getV8RuntimeHandle(), getHandle());
         return this;
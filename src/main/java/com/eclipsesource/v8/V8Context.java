@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * An additional context inside an existing runtime. Each context has its own
+ * global object, which this object represents, while sharing the isolate,
+ * its heap and its compiled code with the runtime. Scripts executed through
+ * a context only see that context's globals, which makes a context a cheap
+ * way to isolate, for example, individual requests.
+ *
+ * Functions keep running in the context they were created in, so functions
+ * of a context can be called through {@link V8Object#executeVoidFunction}
+ * and friends as usual. Like any other V8Object, a context has to be
+ * released.
+ */
+public class V8Context extends V8Object {
+
+    int entered = 0;
+
+    public V8Context(final V8 v8) {
+        super(v8, false);
+        try {
+            released = false;
+            v8.addObjRef(this);
+            v8._createContext(v8.getV8RuntimeHandle(), objectHandle);
+        } catch (Exception e) {
+            release();
+            throw e;
+        }
+    }
+
+    public int executeIntScript(final String script) {
+        return executeIntScript(script, null, 0);
+    }
+
+    public int executeIntScript(final String script, final String scriptName, final int lineNumber) {
+        checkReleaesd();
+        return v8.executeIntScript(this, script, scriptName, lineNumber);
+    }
+
+    public double executeDoubleScript(final String script) {
+        return executeDoubleScript(script, null, 0);
+    }
+
+    public double executeDoubleScript(final String script, final String scriptName, final int lineNumber) {
+        checkReleaesd();
+        return v8.executeDoubleScript(this, script, scriptName, lineNumber);
+    }
+
+    public String executeStringScript(final String script) {
+        return executeStringScript(script, null, 0);
+    }
+
+    public String executeStringScript(final String script, final String scriptName, final int lineNumber) {
+        checkReleaesd();
+        return v8.executeStringScript(this, script, scriptName, lineNumber);
+    }
+
+    public boolean executeBooleanScript(final String script) {
+        return executeBooleanScript(script, null, 0);
+    }
+
+    public boolean executeBooleanScript(final String script, final String scriptName, final int lineNumber) {
+        checkReleaesd();
+        return v8.executeBooleanScript(this, script, scriptName, lineNumber);
+    }
+
+    public V8Array executeArrayScript(final String script) {
+        return executeArrayScript(script, null, 0);
+    }
+
+    public V8Array executeArrayScript(final String script, final String scriptName, final int lineNumber) {
+        checkReleaesd();
+        return v8.executeArrayScript(this, script, scriptName, lineNumber);
+    }
+
+    public V8Object executeObjectScript(final String script) {
+        return executeObjectScript(script, null, 0);
+    }
+
+    public V8Object executeObjectScript(final String script, final String scriptName, final int lineNumber) {
+        checkReleaesd();
+        return v8.executeObjectScript(this, script, scriptName, lineNumber);
+    }
+
+    public Object executeScript(final String script) {
+        return executeScript(script, null, 0);
+    }
+
+    public Object executeScript(final String script, final String scriptName, final int lineNumber) {
+        checkReleaesd();
+        return v8.executeScript(this, script, scriptName, lineNumber);
+    }
+
+    public void executeVoidScript(final String script) {
+        executeVoidScript(script, null, 0);
+    }
+
+    public void executeVoidScript(final String script, final String scriptName, final int lineNumber) {
+        checkReleaesd();
+        v8.executeVoidScript(this, script, scriptName, lineNumber);
+    }
+
+    @Override
+    public void release() {
+        v8.checkThread();
+        if (entered > 0) {
+            throw new IllegalStateException("Context is still executing");
+        }
+        super.release();
+    }
+
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Encodes a tree of Java Maps, Lists and primitives into a direct buffer that
+ * can be materialized in a runtime with a single native call, see
+ * {@link V8#decodeObject(ByteBuffer)} and {@link V8#decodeArray(ByteBuffer)}.
+ *
+ * Every value starts with a one byte tag (one of the type constants in
+ * {@link V8Value}) followed by its payload in native byte order. Strings are
+ * written as an int length followed by their UTF-16 code units, arrays as an
+ * int length followed by their elements and objects as an int length followed
+ * by key / value pairs.
+ */
+public final class V8Encoder {
+
+    private static final int TAG_SIZE    = 1;
+    private static final int INT_SIZE    = 4;
+    private static final int DOUBLE_SIZE = 8;
+    private static final int CHAR_SIZE   = 2;
+
+    public static ByteBuffer encode(final Object value) {
+        ByteBuffer result = ByteBuffer.allocateDirect(sizeOf(value));
+        result.order(ByteOrder.nativeOrder());
+        write(result, value);
+        result.flip();
+        return result;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static int sizeOf(final Object value) {
+        if (value == null) {
+            return TAG_SIZE;
+        } else if ((value instanceof Integer) || (value instanceof Long)) {
+            return TAG_SIZE + INT_SIZE;
+        } else if ((value instanceof Double) || (value instanceof Float)) {
+            return TAG_SIZE + DOUBLE_SIZE;
+        } else if (value instanceof Boolean) {
+            return TAG_SIZE + 1;
+        } else if (value instanceof String) {
+            return TAG_SIZE + sizeOf((String) value);
+        } else if (value instanceof Map) {
+            int result = TAG_SIZE + INT_SIZE;
+            for (Object entry : ((Map) value).entrySet()) {
+                result += sizeOf((String) ((Entry) entry).getKey());
+                result += sizeOf(((Entry) entry).getValue());
+            }
+            return result;
+        } else if (value instanceof List) {
+            int result = TAG_SIZE + INT_SIZE;
+            for (Object element : (List) value) {
+                result += sizeOf(element);
+            }
+            return result;
+        }
+        throw new IllegalStateException("Unsupported Object of type: " + value.getClass());
+    }
+
+    private static int sizeOf(final String value) {
+        return INT_SIZE + (value.length() * CHAR_SIZE);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void write(final ByteBuffer buffer, final Object value) {
+        if (value == null) {
+            buffer.put((byte) V8Value.UNDEFINED);
+        } else if (value instanceof Integer) {
+            buffer.put((byte) V8Value.INTEGER);
+            buffer.putInt((Integer) value);
+        } else if (value instanceof Long) {
+            buffer.put((byte) V8Value.INTEGER);
+            buffer.putInt((int) (long) value);
+        } else if (value instanceof Double) {
+            buffer.put((byte) V8Value.DOUBLE);
+            buffer.putDouble((Double) value);
+        } else if (value instanceof Float) {
+            buffer.put((byte) V8Value.DOUBLE);
+            buffer.putDouble((Float) value);
+        } else if (value instanceof Boolean) {
+            buffer.put((byte) V8Value.BOOLEAN);
+            buffer.put((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof String) {
+            buffer.put((byte) V8Value.STRING);
+            write(buffer, (String) value);
+        } else if (value instanceof Map) {
+            Map map = (Map) value;
+            buffer.put((byte) V8Value.V8_OBJECT);
+            buffer.putInt(map.size());
+            for (Object entry : map.entrySet()) {
+                write(buffer, (String) ((Entry) entry).getKey());
+                write(buffer, ((Entry) entry).getValue());
+            }
+        } else if (value instanceof List) {
+            List list = (List) value;
+            buffer.put((byte) V8Value.V8_ARRAY);
+            buffer.putInt(list.size());
+            for (Object element : list) {
+                write(buffer, element);
+            }
+        }
+    }
+
+    private static void write(final ByteBuffer buffer, final String value) {
+        int length = value.length();
+        buffer.putInt(length);
+        for (int i = 0; i < length; i++) {
+            buffer.putChar(value.charAt(i));
+        }
+    }
+
+    private V8Encoder() {
+
+    }
+
+}
@@ -0,0 +1,572 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread that owns a runtime and drives it like an event loop. The
+ * runtime gets setTimeout, setInterval, clearTimeout and clearInterval.
+ * Work is handed to the loop with {@link #execute(Runnable)} or
+ * {@link #submit(Callable)} from any thread. Every turn of the loop runs the
+ * submitted tasks, then fires the due timers with a single call into
+ * JavaScript, then drains the microtasks.
+ *
+ * Timers are kept in a hashed timer wheel with millisecond ticks. The loop
+ * measures its lag, which is how late a task or timer runs compared to when
+ * it was submitted or due.
+ *
+ * With {@link #setIdleNotification(long, int)} the loop hands idle time to
+ * the garbage collector once it had nothing to do for a while, so that
+ * collections happen between bursts of work instead of during them.
+ *
+ * <pre>
+ * final V8EventLoop loop = new V8EventLoop("worker", new V8RuntimeConfig());
+ * loop.start();
+ * loop.execute(new Runnable() {
+ *     public void run() {
+ *         loop.getRuntime().executeVoidScript("setTimeout(function() { ... }, 100);");
+ *     }
+ * });
+ * </pre>
+ */
+public class V8EventLoop implements Executor {
+
+    public interface ErrorHandler {
+
+        /**
+         * Called on the loop thread with exceptions thrown by tasks and
+         * timers. Without a handler such an exception ends the loop.
+         */
+        void handleError(V8EventLoop loop, Exception error);
+
+    }
+
+    private static final int    WHEEL_SIZE    = 512;
+    private static final int    WHEEL_MASK    = WHEEL_SIZE - 1;
+    private static final String TIMERS_SCRIPT = "(function(global) {\n"
+            + "  var callbacks = {};\n"
+            + "  var loop = {\n"
+            + "    fire : function(ids) {\n"
+            + "      var error = null;\n"
+            + "      for (var i = 0; i < ids.length; i++) {\n"
+            + "        var timer = callbacks[ids[i]];\n"
+            + "        if (!timer) {\n"
+            + "          continue;\n"
+            + "        }\n"
+            + "        if (!timer.repeat) {\n"
+            + "          delete callbacks[ids[i]];\n"
+            + "        }\n"
+            + "        try {\n"
+            + "          timer.callback.apply(global, timer.args);\n"
+            + "        } catch (e) {\n"
+            + "          if (error === null) {\n"
+            + "            error = e;\n"
+            + "          }\n"
+            + "        }\n"
+            + "      }\n"
+            + "      if (error !== null) {\n"
+            + "        throw error;\n"
+            + "      }\n"
+            + "    }\n"
+            + "  };\n"
+            + "  function add(callback, delay, args, repeat) {\n"
+            + "    if (typeof callback !== 'function') {\n"
+            + "      throw new TypeError('Callback must be a function');\n"
+            + "    }\n"
+            + "    var id = loop.schedule(Math.max(0, +delay || 0), repeat);\n"
+            + "    callbacks[id] = { callback : callback, args : args, repeat : repeat };\n"
+            + "    return id;\n"
+            + "  }\n"
+            + "  global.setTimeout = function(callback, delay) {\n"
+            + "    return add(callback, delay, Array.prototype.slice.call(arguments, 2), false);\n"
+            + "  };\n"
+            + "  global.setInterval = function(callback, delay) {\n"
+            + "    return add(callback, delay, Array.prototype.slice.call(arguments, 2), true);\n"
+            + "  };\n"
+            + "  global.clearTimeout = global.clearInterval = function(id) {\n"
+            + "    if (callbacks[id]) {\n"
+            + "      delete callbacks[id];\n"
+            + "      loop.cancel(id);\n"
+            + "    }\n"
+            + "  };\n"
+            + "  return loop;\n"
+            + "})(this)";
+
+    private static final Comparator<Timer> DEADLINE_ORDER = new Comparator<Timer>() {
+
+        @Override
+        public int compare(final Timer timer1, final Timer timer2) {
+            if (timer1.deadline != timer2.deadline) {
+                return timer1.deadline < timer2.deadline ? -1 : 1;
+            }
+            return timer1.id - timer2.id;
+        }
+    };
+
+    private static class Task {
+        final Runnable     runnable;
+        final V8Future<?>  future;
+        final long         submitted;
+
+        Task(final Runnable runnable, final V8Future<?> future) {
+            this.runnable = runnable;
+            this.future = future;
+            submitted = System.nanoTime();
+        }
+    }
+
+    private static class Timer {
+        final int  id;
+        final long interval;
+        long       deadline;
+        boolean    cancelled;
+
+        Timer(final int id, final long interval) {
+            this.id = id;
+            this.interval = interval;
+        }
+    }
+
+    private final V8RuntimeConfig       config;
+    private final Thread                thread;
+    private final Object                lock           = new Object();
+    private Queue<Task>                 tasks          = new ArrayDeque<>();
+    private boolean                     woken          = false;
+    private boolean                     shutdown       = false;
+    private List<Runnable>              shutdownListeners = new ArrayList<>();
+    private volatile ErrorHandler       errorHandler   = null;
+    private long                        idleDelay      = 0;
+    private int                         idleTime       = 0;
+
+    // only accessed on the loop thread
+    private V8                          runtime;
+    private V8Object                    timers;
+    private final List<List<Timer>>     wheel          = new ArrayList<>(WHEEL_SIZE);
+    private final Map<Integer, Timer>   activeTimers   = new HashMap<>();
+    private int                         timerCounter   = 1;
+    private long                        startTime;
+    private long                        currentTick    = 0;
+    private long                        lastActivity   = 0;
+    private boolean                     idleCollected  = false;
+
+    // written on the loop thread only
+    private volatile long               turns          = 0;
+    private volatile long               dispatchedTasks  = 0;
+    private volatile long               dispatchedTimers = 0;
+    private volatile long               idleNotifications = 0;
+    private volatile long               lagSamples     = 0;
+    private volatile long               totalLag       = 0;
+    private volatile long               maxLag         = 0;
+    private volatile long               lastLag        = 0;
+
+    public V8EventLoop(final String name, final V8RuntimeConfig config) {
+        this.config = config;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<Timer>());
+        }
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, name);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Returns the runtime owned by the loop. Only available on the loop
+     * thread, for example inside a task passed to {@link #execute(Runnable)}.
+     */
+    public V8 getRuntime() {
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException("Runtime can only be accessed from the event loop thread");
+        }
+        return runtime;
+    }
+
+    public boolean isLoopThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    public void setErrorHandler(final ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Enables idle time garbage collection. Once the loop had no tasks and
+     * no timers for idleDelay milliseconds, it repeatedly calls
+     * {@link V8#idleNotification(int)} with at most idleTime milliseconds,
+     * never running into the next timer, until V8 reports that it is done.
+     * New work restarts the cycle. A delay of 0 disables it.
+     */
+    public void setIdleNotification(final long idleDelay, final int idleTime) {
+        if ((idleDelay < 0) || ((idleDelay > 0) && (idleTime <= 0))) {
+            throw new IllegalArgumentException("Invalid idle notification: " + idleDelay + ", " + idleTime);
+        }
+        synchronized (lock) {
+            this.idleDelay = idleDelay;
+            this.idleTime = idleTime;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Asks the runtime to free as much memory as possible on its next turn.
+     * May be called from any thread, for example when the process is
+     * running short of memory.
+     */
+    public void lowMemoryNotification() {
+        execute(new Runnable() {
+
+            @Override
+            public void run() {
+                runtime.lowMemoryNotification();
+            }
+        });
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+        enqueue(new Task(task, null));
+    }
+
+    public <T> V8Future<T> submit(final Callable<T> task) {
+        final V8Future<T> result = new V8Future<>();
+        enqueue(new Task(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    result.complete(task.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        }, result));
+        return result;
+    }
+
+    private void enqueue(final Task task) {
+        synchronized (lock) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Event loop shut down");
+            }
+            tasks.add(task);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Stops the loop after the current turn. Pending tasks and timers are
+     * dropped, futures returned by {@link #submit(Callable)} for dropped
+     * tasks fail with a {@link CancellationException}, and the runtime is
+     * released on the loop thread.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Adds a listener that runs on the loop thread once the loop stopped,
+     * before its runtime is released. Listeners added after that run right
+     * away on the calling thread.
+     */
+    public void addShutdownListener(final Runnable listener) {
+        synchronized (lock) {
+            if (shutdownListeners != null) {
+                shutdownListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        thread.join(Math.max(1, unit.toMillis(timeout)));
+        return !thread.isAlive();
+    }
+
+    public boolean isTerminated() {
+        return (thread.getState() == Thread.State.TERMINATED);
+    }
+
+    public long getTurnCount() {
+        return turns;
+    }
+
+    public long getDispatchedTaskCount() {
+        return dispatchedTasks;
+    }
+
+    public long getDispatchedTimerCount() {
+        return dispatchedTimers;
+    }
+
+    public long getIdleNotificationCount() {
+        return idleNotifications;
+    }
+
+    public long getLastLagMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(lastLag);
+    }
+
+    public long getMaxLagMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLag);
+    }
+
+    public long getAverageLagMicros() {
+        long samples = lagSamples;
+        return samples == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLag / samples);
+    }
+
+    void wakeUp() {
+        synchronized (lock) {
+            woken = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void runLoop() {
+        Queue<Task> batch = null;
+        try {
+            runtime = V8.createV8Runtime(config);
+            runtime.eventLoop = this;
+            startTime = System.nanoTime();
+            installTimers();
+            while (true) {
+                batch = null;
+                int idleBudget = 0;
+                synchronized (lock) {
+                    while (!shutdown && tasks.isEmpty() && !woken) {
+                        long next = getNextDeadline();
+                        long now = currentTime();
+                        if ((next >= 0) && (next <= now)) {
+                            break;
+                        }
+                        long wait = next < 0 ? 0 : next - now;
+                        if ((idleDelay > 0) && !idleCollected) {
+                            long idleStart = lastActivity + idleDelay;
+                            if (idleStart <= now) {
+                                idleBudget = (int) (wait == 0 ? idleTime : Math.min(idleTime, wait));
+                                break;
+                            }
+                            wait = wait == 0 ? idleStart - now : Math.min(wait, idleStart - now);
+                        }
+                        lock.wait(wait);
+                    }
+                    if (shutdown) {
+                        return;
+                    }
+                    if (idleBudget == 0) {
+                        batch = tasks;
+                        tasks = new ArrayDeque<>();
+                        woken = false;
+                    }
+                }
+                if (idleBudget > 0) {
+                    idleNotifications++;
+                    idleCollected = runtime.idleNotification(idleBudget);
+                    continue;
+                }
+                turns++;
+                runTasks(batch);
+                fireTimers();
+                runtime.runMicrotasks();
+                lastActivity = currentTime();
+                idleCollected = false;
+            }
+        } catch (InterruptedException e) {
+            // the loop thread was interrupted, stop like on shutdown
+        } finally {
+            // the rest of an interrupted batch runs before the queued tasks
+            List<Task> dropped = batch == null ? new ArrayList<Task>() : new ArrayList<>(batch);
+            List<Runnable> listeners;
+            synchronized (lock) {
+                shutdown = true;
+                dropped.addAll(tasks);
+                tasks.clear();
+                listeners = shutdownListeners;
+                shutdownListeners = null;
+            }
+            for (Task task : dropped) {
+                if (task.future != null) {
+                    task.future.completeExceptionally(new CancellationException("Event loop shut down"));
+                }
+            }
+            for (Runnable listener : listeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    if (errorHandler != null) {
+                        errorHandler.handleError(this, e);
+                    }
+                }
+            }
+            if (runtime != null) {
+                runtime.eventLoop = null;
+                if (timers != null) {
+                    timers.release();
+                }
+                runtime.release(false);
+            }
+        }
+    }
+
+    private void installTimers() {
+        timers = runtime.executeObjectScript(TIMERS_SCRIPT);
+        timers.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return schedule((long) parameters.getDouble(0), parameters.getBoolean(1));
+            }
+        }, "schedule");
+        timers.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                Timer timer = activeTimers.remove(parameters.getInteger(0));
+                if (timer != null) {
+                    timer.cancelled = true;
+                }
+            }
+        }, "cancel");
+    }
+
+    private int schedule(final long delay, final boolean repeat) {
+        Timer timer = new Timer(timerCounter++, repeat ? Math.max(1, delay) : 0);
+        timer.deadline = Math.max(currentTime() + delay, currentTick + 1);
+        activeTimers.put(timer.id, timer);
+        wheel.get((int) (timer.deadline & WHEEL_MASK)).add(timer);
+        return timer.id;
+    }
+
+    private void runTasks(final Queue<Task> batch) {
+        Task task;
+        while ((task = batch.poll()) != null) {
+            recordLag(System.nanoTime() - task.submitted);
+            dispatchedTasks++;
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                handleError(e);
+            }
+        }
+    }
+
+    private void fireTimers() {
+        long now = currentTime();
+        List<Timer> due = collectDueTimers(now);
+        if (due.isEmpty()) {
+            return;
+        }
+        Collections.sort(due, DEADLINE_ORDER);
+        V8Array ids = new V8Array(runtime);
+        try {
+            for (Timer timer : due) {
+                recordLag(TimeUnit.MILLISECONDS.toNanos(now - timer.deadline));
+                ids.push(timer.id);
+                if (timer.interval > 0) {
+                    timer.deadline = now + timer.interval;
+                    wheel.get((int) (timer.deadline & WHEEL_MASK)).add(timer);
+                } else {
+                    activeTimers.remove(timer.id);
+                }
+            }
+            dispatchedTimers += due.size();
+            timers.executeVoidFunction("fire", ids);
+        } catch (RuntimeException e) {
+            handleError(e);
+        } finally {
+            ids.release();
+        }
+    }
+
+    private List<Timer> collectDueTimers(final long now) {
+        List<Timer> result = new ArrayList<>();
+        long ticks = Math.min(now - currentTick, WHEEL_SIZE);
+        for (long i = 1; i <= ticks; i++) {
+            Iterator<Timer> iterator = wheel.get((int) ((currentTick + i) & WHEEL_MASK)).iterator();
+            while (iterator.hasNext()) {
+                Timer timer = iterator.next();
+                if (timer.cancelled) {
+                    iterator.remove();
+                } else if (timer.deadline <= now) {
+                    iterator.remove();
+                    result.add(timer);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, now);
+        return result;
+    }
+
+    /**
+     * Returns the tick of the next timer within one turn of the wheel, the
+     * tick one turn ahead if all timers are further away, or -1 without
+     * timers.
+     */
+    private long getNextDeadline() {
+        if (activeTimers.isEmpty()) {
+            return -1;
+        }
+        for (long tick = currentTick + 1; tick <= (currentTick + WHEEL_SIZE); tick++) {
+            for (Timer timer : wheel.get((int) (tick & WHEEL_MASK))) {
+                if (!timer.cancelled && (timer.deadline == tick)) {
+                    return tick;
+                }
+            }
+        }
+        return currentTick + WHEEL_SIZE;
+    }
+
+    private long currentTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    private void recordLag(final long lag) {
+        long value = Math.max(0, lag);
+        lastLag = value;
+        maxLag = Math.max(maxLag, value);
+        totalLag += value;
+        lagSamples++;
+    }
+
+    private void handleError(final RuntimeException error) {
+        ErrorHandler handler = errorHandler;
+        if (handler == null) {
+            throw error;
+        }
+        handler.handleError(this, error);
+    }
+
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A result that becomes available later, used to bridge JavaScript Promises
+ * and Java code, see {@link V8#toFuture(V8Object)} and
+ * {@link V8#toPromise(V8Future)}. A future may be completed from any thread.
+ *
+ * Promises settle on the runtime thread while microtasks run, so blocking
+ * in {@link #get()} on the runtime thread waits forever for a future created
+ * from a promise; use a {@link Listener} there instead.
+ */
+public class V8Future<T> implements Future<T> {
+
+    public interface Listener<T> {
+
+        /**
+         * Called once the future is completed, on the completing thread or,
+         * when it is added to a completed future, on the adding thread.
+         */
+        void completed(V8Future<T> future);
+
+    }
+
+    private T                 value;
+    private Throwable         error;
+    private boolean           done      = false;
+    private boolean           cancelled = false;
+    private List<Listener<T>> listeners = new ArrayList<>();
+
+    public boolean complete(final T value) {
+        return finish(value, null, false);
+    }
+
+    public boolean completeExceptionally(final Throwable error) {
+        if (error == null) {
+            throw new NullPointerException();
+        }
+        return finish(null, error, false);
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        return finish(null, new CancellationException(), true);
+    }
+
+    public void addListener(final Listener<T> listener) {
+        synchronized (this) {
+            if (!done) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        listener.completed(this);
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    public synchronized boolean isCompletedExceptionally() {
+        return done && (error != null);
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return getResult();
+    }
+
+    @Override
+    public synchronized T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException,
+    TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getResult();
+    }
+
+    /**
+     * Returns the value of a completed future without blocking, or throws
+     * the error it was completed with.
+     */
+    public synchronized T getNow() throws ExecutionException {
+        if (!done) {
+            throw new IllegalStateException("Future not completed");
+        }
+        return getResult();
+    }
+
+    synchronized T getValue() {
+        return value;
+    }
+
+    synchronized Throwable getError() {
+        return error;
+    }
+
+    private T getResult() throws ExecutionException {
+        if (cancelled) {
+            throw (CancellationException) error;
+        }
+        if (error != null) {
+            throw new ExecutionException(error);
+        }
+        return value;
+    }
+
+    private boolean finish(final T value, final Throwable error, final boolean cancelled) {
+        List<Listener<T>> toNotify;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            this.value = value;
+            this.error = error;
+            this.cancelled = cancelled;
+            done = true;
+            toNotify = listeners;
+            listeners = null;
+            notifyAll();
+        }
+        for (Listener<T> listener : toNotify) {
+            listener.completed(this);
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * A snapshot of the heap of a runtime, see {@link V8#getHeapStatistics()}.
+ * All sizes are in bytes.
+ */
+public class V8HeapStatistics {
+
+    static final int FIELDS = 6;
+
+    private final long[] values;
+
+    V8HeapStatistics(final long[] values) {
+        this.values = values;
+    }
+
+    public long getTotalHeapSize() {
+        return values[0];
+    }
+
+    public long getTotalHeapSizeExecutable() {
+        return values[1];
+    }
+
+    public long getTotalPhysicalSize() {
+        return values[2];
+    }
+
+    public long getUsedHeapSize() {
+        return values[3];
+    }
+
+    public long getHeapSizeLimit() {
+        return values[4];
+    }
+
+    /**
+     * Returns the memory reported to V8 as held outside of its heap on
+     * behalf of JavaScript objects.
+     */
+    public long getExternalMemory() {
+        return values[5];
+    }
+
+    @Override
+    public String toString() {
+        return "total: " + getTotalHeapSize() + ", executable: " + getTotalHeapSizeExecutable() + ", physical: "
+                + getTotalPhysicalSize() + ", used: " + getUsedHeapSize() + ", limit: " + getHeapSizeLimit() + ", external: "
+                + getExternalMemory();
+    }
+
+}
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Points from a handle to the wrapper handed out for it by the identity
+ * cache, together with the reference tracking that wrapper, so the handle
+ * can be taken over without searching all tracked values.
+ */
+final class V8IdentityEntry extends WeakReference<V8Object> {
+
+    final V8ValueReference reference;
+
+    V8IdentityEntry(final V8Object wrapper) {
+        super(wrapper);
+        reference = wrapper.reference;
+    }
+
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks every V8Object and V8Array created on a runtime while the scope is
+ * open and releases the ones still alive with a single native call when the
+ * scope is closed. Scopes nest; values created inside an inner scope belong
+ * to the innermost open scope and can be handed to the enclosing scope with
+ * {@link #promote(V8Value)}.
+ *
+ * <pre>
+ * try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+ *     V8Object result = v8.executeObjectScript("...");
+ *     ...
+ * }
+ * </pre>
+ */
+public class V8MemoryScope implements AutoCloseable {
+
+    private static final int COMPACT_THRESHOLD = 64;
+
+    private final V8         v8;
+    private List<V8Value>    values            = new ArrayList<>();
+    private int              detachedCount     = 0;
+    private boolean          closed            = false;
+
+    public V8MemoryScope(final V8 v8) {
+        v8.checkThread();
+        this.v8 = v8;
+        v8.pushMemoryScope(this);
+    }
+
+    public <T extends V8Value> T promote(final T value) {
+        v8.checkThread();
+        checkClosed();
+        if (value.memoryScope != this) {
+            throw new IllegalArgumentException("Value does not belong to this scope");
+        }
+        detach(value);
+        V8MemoryScope parent = v8.getParentMemoryScope(this);
+        if (parent != null) {
+            parent.add(value);
+        }
+        return value;
+    }
+
+    public int getSize() {
+        return closed ? 0 : values.size() - detachedCount;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        v8.checkThread();
+        if (closed) {
+            return;
+        }
+        closed = true;
+        v8.removeMemoryScope(this);
+        int[] handles = new int[values.size()];
+        int count = 0;
+        for (V8Value value : values) {
+            if (value.memoryScope != this) {
+                continue;
+            }
+            value.memoryScope = null;
+            if (!value.released && (value.sharedReferences > 0)) {
+                // still referenced outside of this scope through the identity cache
+                value.sharedReferences--;
+                continue;
+            }
+            if (!value.released) {
+                value.released = true;
+                handles[count++] = value.objectHandle;
+                v8.releaseObjRef(value);
+            }
+        }
+        values = null;
+        v8.releaseHandles(handles, count);
+    }
+
+    void invalidate() {
+        closed = true;
+        values = null;
+    }
+
+    void add(final V8Value value) {
+        value.memoryScope = this;
+        values.add(value);
+    }
+
+    void detach(final V8Value value) {
+        value.memoryScope = null;
+        detachedCount++;
+        if ((detachedCount > COMPACT_THRESHOLD) && (detachedCount > (values.size() / 2))) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<V8Value> result = new ArrayList<>(values.size() - detachedCount);
+        for (V8Value value : values) {
+            if (value.memoryScope == this) {
+                result.add(value);
+            }
+        }
+        values = result;
+        detachedCount = 0;
+    }
+
+    private void checkClosed() {
+        if (closed) {
+            throw new IllegalStateException("Memory scope closed");
+        }
+    }
+
+}
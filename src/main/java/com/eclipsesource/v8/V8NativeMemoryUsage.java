@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * Native memory a runtime holds on behalf of Java, outside of the V8 heap.
+ * The total is reported to V8 as externally allocated memory, so that it
+ * drives the garbage collector like heap allocations do. Sizes of handles
+ * and index entries are estimates.
+ */
+public class V8NativeMemoryUsage {
+
+    static final int FIELDS = 9;
+
+    private final long[] values;
+
+    V8NativeMemoryUsage(final long[] values) {
+        this.values = values;
+    }
+
+    public long getHandleCount() {
+        return values[0];
+    }
+
+    public long getHandleBytes() {
+        return values[1];
+    }
+
+    public long getCallbackCount() {
+        return values[2];
+    }
+
+    public long getCallbackBytes() {
+        return values[3];
+    }
+
+    public long getKeyCacheBytes() {
+        return values[4];
+    }
+
+    public long getIdentityIndexBytes() {
+        return values[5];
+    }
+
+    public long getExternalBytes() {
+        return values[6];
+    }
+
+    public long getTotalBytes() {
+        return values[7];
+    }
+
+    public long getReportedBytes() {
+        return values[8];
+    }
+
+    @Override
+    public String toString() {
+        return "handles: " + getHandleCount() + " (" + getHandleBytes() + " bytes), callbacks: " + getCallbackCount() + " ("
+                + getCallbackBytes() + " bytes), key cache: " + getKeyCacheBytes() + " bytes, identity index: "
+                + getIdentityIndexBytes() + " bytes, external: " + getExternalBytes() + " bytes, total: " + getTotalBytes()
+                + " bytes";
+    }
+
+}
@@ -10,10 +10,17 @@
  ******************************************************************************/
 package com.eclipsesource.v8;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public class V8Object extends V8Value {
 
+    private static final int JSON_CHUNK_SIZE = 8192;
+
     protected V8Object() {
         v8 = (V8) this;
         objectHandle = 0;
@@ -26,62 +33,64 @@ public class V8Object extends V8Value {
 
     protected V8Object(final V8 v8, final boolean initialize) {
         this.v8 = v8;
-        V8.checkThread();
-        objectHandle = v8ObjectInstanceCounter++;
+        v8.checkThread();
+        epoch = v8.currentEpoch;
+        objectHandle = v8.allocateObjectHandle();
+        v8.addToMemoryScope(this);
         if (initialize) {
             initialize(v8.getV8RuntimeHandle(), objectHandle);
         }
     }
 
     public boolean contains(final String key) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._contains(v8.getV8RuntimeHandle(), objectHandle, key);
     }
 
     public String[] getKeys() {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getKeys(v8.getV8RuntimeHandle(), objectHandle);
     }
 
     public int getType(final String key) throws V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getType(v8.getV8RuntimeHandle(), objectHandle, key);
     }
 
     public int getInteger(final String key) throws V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getInteger(v8.getV8RuntimeHandle(), objectHandle, key);
     }
 
     public boolean getBoolean(final String key) throws V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getBoolean(v8.getV8RuntimeHandle(), objectHandle, key);
     }
 
     public double getDouble(final String key) throws V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getDouble(v8.getV8RuntimeHandle(), objectHandle, key);
     }
 
     public String getString(final String key) throws V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return v8._getString(v8.getV8RuntimeHandle(), objectHandle, key);
     }
 
     public V8Array getArray(final String key) throws V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         V8Array result = new V8Array(v8, false);
         try {
             result.released = false;
-            v8.addObjRef();
+            v8.addObjRef(result);
             v8._getArray(v8.getV8RuntimeHandle(), getHandle(), key, result.getHandle());
         } catch (Exception e) {
             result.release();
@@ -91,153 +100,221 @@ public class V8Object extends V8Value {
     }
 
     public V8Object getObject(final String key) throws V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         V8Object result = new V8Object(v8, false);
+        int handle = 0;
         try {
             result.released = false;
-            v8.addObjRef();
-            v8._getObject(v8.getV8RuntimeHandle(), objectHandle, key, result.getHandle());
+            v8.addObjRef(result);
+            if (v8.isIdentityCache()) {
+                handle = v8._getObjectIdentity(v8.getV8RuntimeHandle(), objectHandle, key, result.getHandle());
+            } else {
+                v8._getObject(v8.getV8RuntimeHandle(), objectHandle, key, result.getHandle());
+            }
         } catch (Exception e) {
             result.release();
             throw e;
         }
-        return result;
+        return v8.isIdentityCache() ? v8.internObject(result, handle) : result;
     }
 
     public V8Array createParameterList(final int size) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return null;
     }
 
     public int executeIntFunction(final String name, final V8Array parameters) throws V8ScriptExecutionException,
     V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         int parametersHandle = parameters == null ? -1 : parameters.getHandle();
-        return v8._executeIntFunction(v8.getV8RuntimeHandle(), getHandle(), name, parametersHandle);
+        v8.enterExecution();
+        try {
+            return v8._executeIntFunction(v8.getV8RuntimeHandle(), getHandle(), name, parametersHandle);
+        } finally {
+            v8.exitExecution();
+        }
     }
 
     public double executeDoubleFunction(final String name, final V8Array parameters) throws V8ScriptExecutionException,
     V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         int parametersHandle = parameters == null ? -1 : parameters.getHandle();
-        return v8._executeDoubleFunction(v8.getV8RuntimeHandle(), getHandle(), name, parametersHandle);
+        v8.enterExecution();
+        try {
+            return v8._executeDoubleFunction(v8.getV8RuntimeHandle(), getHandle(), name, parametersHandle);
+        } finally {
+            v8.exitExecution();
+        }
     }
 
     public String executeStringFunction(final String name, final V8Array parameters) throws V8ScriptExecutionException,
     V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         int parametersHandle = parameters == null ? -1 : parameters.getHandle();
-        return v8._executeStringFunction(v8.getV8RuntimeHandle(), getHandle(), name, parametersHandle);
+        v8.enterExecution();
+        try {
+            return v8._executeStringFunction(v8.getV8RuntimeHandle(), getHandle(), name, parametersHandle);
+        } finally {
+            v8.exitExecution();
+        }
     }
 
     public boolean executeBooleanFunction(final String name, final V8Array parameters) throws V8ScriptExecutionException,
     V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         int parametersHandle = parameters == null ? -1 : parameters.getHandle();
-        return v8._executeBooleanFunction(v8.getV8RuntimeHandle(), getHandle(), name, parametersHandle);
+        v8.enterExecution();
+        try {
+            return v8._executeBooleanFunction(v8.getV8RuntimeHandle(), getHandle(), name, parametersHandle);
+        } finally {
+            v8.exitExecution();
+        }
     }
 
     public V8Array executeArrayFunction(final String name, final V8Array parameters) throws V8ScriptExecutionException,
     V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         V8Array result = new V8Array(v8);
+        v8.enterExecution();
         try {
             int parametersHandle = parameters == null ? -1 : parameters.getHandle();
             v8._executeArrayFunction(v8.getV8RuntimeHandle(), objectHandle, name, parametersHandle, result.getHandle());
         } catch (Exception e) {
             result.release();
             throw e;
+        } finally {
+            v8.exitExecution();
         }
         return result;
     }
 
     public V8Object executeObjectFunction(final String name, final V8Array parameters) throws V8ScriptExecutionException,
     V8ResultUndefined {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         V8Object result = new V8Object(v8);
+        v8.enterExecution();
         try {
             int parametersHandle = parameters == null ? -1 : parameters.getHandle();
             v8._executeObjectFunction(v8.getV8RuntimeHandle(), objectHandle, name, parametersHandle, result.getHandle());
         } catch (Exception e) {
             result.release();
             throw e;
+        } finally {
+            v8.exitExecution();
         }
         return result;
     }
 
     public void executeVoidFunction(final String name, final V8Array parameters) throws V8ScriptExecutionException {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         int parametersHandle = parameters == null ? -1 : parameters.getHandle();
-        v8._executeVoidFunction(v8.getV8RuntimeHandle(), objectHandle, name, parametersHandle);
+        v8.enterExecution();
+        try {
+            v8._executeVoidFunction(v8.getV8RuntimeHandle(), objectHandle, name, parametersHandle);
+        } finally {
+            v8.exitExecution();
+        }
     }
 
     public V8Object add(final String key, final int value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._add(v8.getV8RuntimeHandle(), objectHandle, key, value);
         return this;
     }
 
     public V8Object add(final String key, final boolean value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._add(v8.getV8RuntimeHandle(), objectHandle, key, value);
         return this;
     }
 
     public V8Object add(final String key, final double value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._add(v8.getV8RuntimeHandle(), objectHandle, key, value);
         return this;
     }
 
     public V8Object add(final String key, final String value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._add(v8.getV8RuntimeHandle(), objectHandle, key, value);
         return this;
     }
 
     public V8Object add(final String key, final V8Value value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._addObject(v8.getV8RuntimeHandle(), objectHandle, key, value.getHandle());
         return this;
     }
 
     public V8Object addUndefined(final String key) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._addUndefined(v8.getV8RuntimeHandle(), objectHandle, key);
         return this;
     }
 
     public V8Object setPrototype(final V8Object value) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8._setPrototype(v8.getV8RuntimeHandle(), objectHandle, value.getHandle());
         return this;
     }
 
+    /**
+     * Turns the reference to the JavaScript object into a weak one, so that
+     * holding this V8Object no longer prevents the V8 garbage collector from
+     * reclaiming it. Use {@link #isCollected()} to find out whether the
+     * object is still available. The V8Object must still be released.
+     */
+    public V8Object setWeak() {
+        v8.checkThread();
+        checkReleaesd();
+        v8._setWeak(v8.getV8RuntimeHandle(), objectHandle);
+        return this;
+    }
+
+    public V8Object clearWeak() {
+        v8.checkThread();
+        checkReleaesd();
+        v8._clearWeak(v8.getV8RuntimeHandle(), objectHandle);
+        return this;
+    }
+
+    public boolean isWeak() {
+        v8.checkThread();
+        checkReleaesd();
+        return v8._isWeak(v8.getV8RuntimeHandle(), objectHandle);
+    }
+
+    public boolean isCollected() {
+        v8.checkThread();
+        checkReleaesd();
+        return v8._isCollected(v8.getV8RuntimeHandle(), objectHandle);
+    }
+
     public V8Object registerJavaMethod(final JavaCallback callback, final String jsFunctionName) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8.registerCallback(callback, getHandle(), jsFunctionName);
         return this;
     }
 
     public V8Object registerJavaMethod(final JavaVoidCallback callback, final String jsFunctionName) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         v8.registerVoidCallback(callback, getHandle(), jsFunctionName);
         return this;
@@ -245,7 +322,7 @@ public class V8Object extends V8Value {
 
     public V8Object registerJavaMethod(final Object object, final String methodName, final String jsFunctionName,
             final Class<?>[] parameterTypes) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         try {
             Method method = object.getClass().getMethod(methodName, parameterTypes);
@@ -259,9 +336,86 @@ public class V8Object extends V8Value {
         return this;
     }
 
+    public int toJson(final ByteBuffer buffer) {
+        v8.checkThread();
+        checkReleaesd();
+        if (buffer.isDirect()) {
+            int length = v8.toJson(this, buffer);
+            if (length > buffer.remaining()) {
+                throw new BufferOverflowException();
+            }
+            buffer.position(buffer.position() + length);
+            return length;
+        }
+        ByteBuffer json = v8.toJson(this);
+        if (json.remaining() > buffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+        int length = json.remaining();
+        buffer.put(json);
+        return length;
+    }
+
+    /**
+     * Serializes this object and everything reachable from it into a compact
+     * binary form that {@link V8#deserialize(ByteBuffer)} turns back into an
+     * equal object, in this or any other runtime. Like a structured clone,
+     * shared and cyclic references, null, Dates, ArrayBuffers and typed arrays
+     * are preserved, while functions, Maps, Sets, RegExps and graphs nested
+     * more than 1000 levels deep cannot be serialized. The result is a new
+     * direct buffer in native byte order.
+     */
+    public ByteBuffer serialize() {
+        v8.checkThread();
+        checkReleaesd();
+        ByteBuffer serialized = v8.serialize(this);
+        ByteBuffer result = ByteBuffer.allocateDirect(serialized.remaining()).order(ByteOrder.nativeOrder());
+        result.put(serialized);
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Serializes this object into the given buffer, see {@link #serialize()},
+     * and returns the number of bytes written. Direct buffers are written
+     * without an intermediate copy.
+     */
+    public int serialize(final ByteBuffer buffer) {
+        v8.checkThread();
+        checkReleaesd();
+        if (buffer.isDirect()) {
+            int length = v8._serialize(v8.getV8RuntimeHandle(), objectHandle, buffer, buffer.position(), buffer.remaining());
+            if (length > buffer.remaining()) {
+                v8._takeSerialized(v8.getV8RuntimeHandle(), null, 0, 0);
+                throw new BufferOverflowException();
+            }
+            buffer.position(buffer.position() + length);
+            return length;
+        }
+        ByteBuffer serialized = v8.serialize(this);
+        if (serialized.remaining() > buffer.remaining()) {
+            throw new BufferOverflowException();
+        }
+        int length = serialized.remaining();
+        buffer.put(serialized);
+        return length;
+    }
+
+    public void toJson(final OutputStream stream) throws IOException {
+        v8.checkThread();
+        checkReleaesd();
+        ByteBuffer json = v8.toJson(this);
+        byte[] chunk = new byte[Math.min(json.remaining(), JSON_CHUNK_SIZE)];
+        while (json.hasRemaining()) {
+            int length = Math.min(json.remaining(), chunk.length);
+            json.get(chunk, 0, length);
+            stream.write(chunk, 0, length);
+        }
+    }
+
     @Override
     public String toString() {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
         return executeStringFunction("toString", null);
     }
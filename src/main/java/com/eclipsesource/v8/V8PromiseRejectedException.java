@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * The error a {@link V8Future} created from a JavaScript Promise completes
+ * with when the promise is rejected. The message is the string value of the
+ * rejection reason.
+ */
+@SuppressWarnings("serial")
+public class V8PromiseRejectedException extends V8RuntimeException {
+
+    public V8PromiseRejectedException(final String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * Settings applied when a runtime is created, see
+ * {@link V8#createV8Runtime(V8RuntimeConfig)}. Sizes of 0 keep the V8
+ * defaults.
+ */
+public class V8RuntimeConfig {
+
+    // V8 takes the space sizes in bytes as an int
+    private static final int MAX_SPACE_SIZE = 2047;
+
+    private String           globalAlias;
+    private int              maxYoungSpaceSize;
+    private int              maxOldSpaceSize;
+    private int              maxExecutableSize;
+    private int              stackLimit;
+    private int              heapLimitThreshold = 90;
+    private HeapLimitHandler heapLimitHandler;
+    private V8Snapshot       snapshot;
+
+    public String getGlobalAlias() {
+        return globalAlias;
+    }
+
+    public V8RuntimeConfig setGlobalAlias(final String globalAlias) {
+        this.globalAlias = globalAlias;
+        return this;
+    }
+
+    public int getMaxYoungSpaceSize() {
+        return maxYoungSpaceSize;
+    }
+
+    /**
+     * Sets the maximum size of the young generation in megabytes.
+     */
+    public V8RuntimeConfig setMaxYoungSpaceSize(final int megabytes) {
+        maxYoungSpaceSize = checkSize(megabytes, MAX_SPACE_SIZE);
+        return this;
+    }
+
+    public int getMaxOldSpaceSize() {
+        return maxOldSpaceSize;
+    }
+
+    /**
+     * Sets the maximum size of the old generation in megabytes.
+     */
+    public V8RuntimeConfig setMaxOldSpaceSize(final int megabytes) {
+        maxOldSpaceSize = checkSize(megabytes, MAX_SPACE_SIZE);
+        return this;
+    }
+
+    public int getMaxExecutableSize() {
+        return maxExecutableSize;
+    }
+
+    /**
+     * Sets the maximum size of generated code in megabytes.
+     */
+    public V8RuntimeConfig setMaxExecutableSize(final int megabytes) {
+        maxExecutableSize = checkSize(megabytes, MAX_SPACE_SIZE);
+        return this;
+    }
+
+    public int getStackLimit() {
+        return stackLimit;
+    }
+
+    /**
+     * Sets the maximum stack size JavaScript may use, in kilobytes.
+     */
+    public V8RuntimeConfig setStackLimit(final int kilobytes) {
+        stackLimit = checkSize(kilobytes, Integer.MAX_VALUE / 1024);
+        return this;
+    }
+
+    public int getHeapLimitThreshold() {
+        return heapLimitThreshold;
+    }
+
+    /**
+     * Sets the heap usage, in percent of the heap size limit, at which the
+     * {@link HeapLimitHandler} is notified.
+     */
+    public V8RuntimeConfig setHeapLimitThreshold(final int percent) {
+        if ((percent <= 0) || (percent > 100)) {
+            throw new IllegalArgumentException("Threshold must be between 1 and 100: " + percent);
+        }
+        heapLimitThreshold = percent;
+        return this;
+    }
+
+    public HeapLimitHandler getHeapLimitHandler() {
+        return heapLimitHandler;
+    }
+
+    public V8RuntimeConfig setHeapLimitHandler(final HeapLimitHandler heapLimitHandler) {
+        this.heapLimitHandler = heapLimitHandler;
+        return this;
+    }
+
+    public V8Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sets the bootstrap scripts the runtime runs before it is returned.
+     */
+    public V8RuntimeConfig setSnapshot(final V8Snapshot snapshot) {
+        this.snapshot = snapshot;
+        return this;
+    }
+
+    private static int checkSize(final int size, final int max) {
+        if ((size < 0) || (size > max)) {
+            throw new IllegalArgumentException("Size must be between 0 and " + max + ": " + size);
+        }
+        return size;
+    }
+
+}
@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+/**
+ * Thrown when a call into JavaScript was terminated before it completed,
+ * either because its execution timeout passed, because
+ * {@link V8#terminateExecution()} was called or because the heap limit
+ * handler gave up. The runtime can still be used afterwards.
+ */
+@SuppressWarnings("serial")
+public class V8ScriptTerminatedException extends V8RuntimeException {
+
+    public V8ScriptTerminatedException() {
+    }
+
+    public V8ScriptTerminatedException(final String message) {
+        super(message);
+    }
+
+}
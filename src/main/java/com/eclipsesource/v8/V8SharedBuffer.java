@@ -0,0 +1,383 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Off-heap memory that can be attached to several runtimes at once, each
+ * seeing it as an ArrayBuffer over the same bytes. Runtimes on different
+ * threads can then work on shared numeric state without copying it.
+ *
+ * Runtimes with an attached buffer also get an Atomics object, whose
+ * operations work on Int32Arrays over shared buffers. They run under the
+ * lock of the buffer, so they are atomic with respect to each other and to
+ * the int operations of this class, and wait and notify let runtimes block
+ * until another one signals them. Plain reads and writes are not ordered,
+ * just like with a SharedArrayBuffer.
+ *
+ * Atomics.wait blocks the thread of the runtime in Java, where V8 cannot
+ * interrupt it. A termination of the runtime, by an execution timeout or
+ * {@link V8#terminateExecution()}, wakes the wait up explicitly and it
+ * throws a {@link V8ScriptTerminatedException}. Other runtimes sharing the
+ * buffer keep waiting.
+ *
+ * <pre>
+ * V8SharedBuffer shared = new V8SharedBuffer(1024);
+ * V8Object buffer = shared.attach(runtime);
+ * runtime.add("state", buffer);
+ * runtime.executeVoidScript("Atomics.add(new Int32Array(state), 0, 1);");
+ * </pre>
+ *
+ * The memory stays reachable as long as a runtime it is attached to is
+ * alive and has not been reset.
+ */
+public class V8SharedBuffer {
+
+    static final int            ADD             = 0;
+    static final int            SUB             = 1;
+    static final int            AND             = 2;
+    static final int            OR              = 3;
+    static final int            XOR             = 4;
+    static final int            EXCHANGE        = 5;
+
+    private static final int    INT_SIZE        = 4;
+    private static final String ATOMICS_SCRIPT  = "(function(global) {\n"
+            + "  var shared = {\n"
+            + "    register : function(buffer, id) {\n"
+            + "      Object.defineProperty(buffer, '__sharedBufferId', { value : id });\n"
+            + "    }\n"
+            + "  };\n"
+            + "  function element(array, index) {\n"
+            + "    if (!(array instanceof Int32Array) || (array.buffer.__sharedBufferId === undefined)) {\n"
+            + "      throw new TypeError('Atomics need an Int32Array over a shared buffer');\n"
+            + "    }\n"
+            + "    var i = +index;\n"
+            + "    if ((i !== (i | 0)) || (i < 0) || (i >= array.length)) {\n"
+            + "      throw new RangeError('Invalid atomic access index');\n"
+            + "    }\n"
+            + "    return (array.byteOffset >> 2) + i;\n"
+            + "  }\n"
+            + "  function update(op) {\n"
+            + "    return function(array, index, value) {\n"
+            + "      var i = element(array, index);\n"
+            + "      return shared.update(array.buffer.__sharedBufferId, op, i, value | 0);\n"
+            + "    };\n"
+            + "  }\n"
+            + "  global.Atomics = {\n"
+            + "    add : update(" + ADD + "),\n"
+            + "    sub : update(" + SUB + "),\n"
+            + "    and : update(" + AND + "),\n"
+            + "    or : update(" + OR + "),\n"
+            + "    xor : update(" + XOR + "),\n"
+            + "    exchange : update(" + EXCHANGE + "),\n"
+            + "    load : function(array, index) {\n"
+            + "      var i = element(array, index);\n"
+            + "      return shared.load(array.buffer.__sharedBufferId, i);\n"
+            + "    },\n"
+            + "    store : function(array, index, value) {\n"
+            + "      var i = element(array, index);\n"
+            + "      return shared.store(array.buffer.__sharedBufferId, i, value | 0);\n"
+            + "    },\n"
+            + "    compareExchange : function(array, index, expected, replacement) {\n"
+            + "      var i = element(array, index);\n"
+            + "      return shared.compareExchange(array.buffer.__sharedBufferId, i, expected | 0, replacement | 0);\n"
+            + "    },\n"
+            + "    wait : function(array, index, value, timeout) {\n"
+            + "      var i = element(array, index);\n"
+            + "      var t = (timeout === undefined) ? -1 : +timeout;\n"
+            + "      return shared.wait(array.buffer.__sharedBufferId, i, value | 0, isFinite(t) ? Math.max(0, t) : -1);\n"
+            + "    },\n"
+            + "    notify : function(array, index, count) {\n"
+            + "      var i = element(array, index);\n"
+            + "      var c = (count === undefined) ? -1 : +count;\n"
+            + "      return shared.notify(array.buffer.__sharedBufferId, i, isFinite(c) ? Math.max(0, c) : -1);\n"
+            + "    }\n"
+            + "  };\n"
+            + "  return shared;\n"
+            + "})(this)";
+
+    private static class Waiter {
+        final int index;
+        boolean   notified;
+
+        Waiter(final int index) {
+            this.index = index;
+        }
+    }
+
+    private final ByteBuffer   buffer;
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    public V8SharedBuffer(final int byteLength) {
+        this(ByteBuffer.allocateDirect(byteLength));
+    }
+
+    /**
+     * Shares the memory of the given direct buffer, from its start to its
+     * capacity.
+     */
+    public V8SharedBuffer(final ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer is not a direct buffer");
+        }
+        this.buffer = buffer.duplicate();
+        this.buffer.clear();
+        this.buffer.order(ByteOrder.nativeOrder());
+    }
+
+    public int getByteLength() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns a view of the shared memory in native byte order, which is
+     * the byte order typed arrays use.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Creates an ArrayBuffer over the shared memory in the given runtime.
+     * The returned object has to be released like any other V8Object.
+     */
+    public V8Object attach(final V8 runtime) {
+        return runtime.attachSharedBuffer(this);
+    }
+
+    public synchronized int load(final int index) {
+        return buffer.getInt(getPosition(index));
+    }
+
+    public synchronized int store(final int index, final int value) {
+        buffer.putInt(getPosition(index), value);
+        return value;
+    }
+
+    public int add(final int index, final int value) {
+        return update(index, ADD, value);
+    }
+
+    public int sub(final int index, final int value) {
+        return update(index, SUB, value);
+    }
+
+    public int and(final int index, final int value) {
+        return update(index, AND, value);
+    }
+
+    public int or(final int index, final int value) {
+        return update(index, OR, value);
+    }
+
+    public int xor(final int index, final int value) {
+        return update(index, XOR, value);
+    }
+
+    public int exchange(final int index, final int value) {
+        return update(index, EXCHANGE, value);
+    }
+
+    /**
+     * Replaces the int at the given index if it equals expected and returns
+     * the previous value either way.
+     */
+    public synchronized int compareExchange(final int index, final int expected, final int replacement) {
+        int position = getPosition(index);
+        int result = buffer.getInt(position);
+        if (result == expected) {
+            buffer.putInt(position, replacement);
+        }
+        return result;
+    }
+
+    /**
+     * Blocks until {@link #wake(int, int)} is called for the index, unless the
+     * int there differs from value. A negative timeout waits forever. Returns
+     * "ok", "not-equal" or "timed-out" like Atomics.wait.
+     */
+    public String waitFor(final int index, final int value, final long timeout) throws InterruptedException {
+        return waitFor(index, value, timeout, null);
+    }
+
+    /**
+     * Waits on behalf of a script running in the given runtime, giving up
+     * once a termination of that runtime was requested.
+     */
+    synchronized String waitFor(final int index, final int value, final long timeout, final V8 runtime)
+            throws InterruptedException {
+        if (buffer.getInt(getPosition(index)) != value) {
+            return "not-equal";
+        }
+        Waiter waiter = new Waiter(index);
+        waiters.add(waiter);
+        if (runtime != null) {
+            runtime.waitingOn = this;
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeout));
+            while (!waiter.notified) {
+                if ((runtime != null) && runtime.terminationRequested) {
+                    throw new V8ScriptTerminatedException("Script execution terminated");
+                }
+                if (timeout < 0) {
+                    wait();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return "timed-out";
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            return "ok";
+        } finally {
+            if (runtime != null) {
+                runtime.waitingOn = null;
+            }
+            waiters.remove(waiter);
+        }
+    }
+
+    /**
+     * Wakes all waiting threads so that the one of a terminated runtime can
+     * give up. The others find they were not notified and wait again.
+     */
+    synchronized void interruptWaiters() {
+        notifyAll();
+    }
+
+    /**
+     * Wakes up to count threads waiting on the index, oldest first, or all of
+     * them for a negative count. Returns the number of threads woken.
+     */
+    public synchronized int wake(final int index, final int count) {
+        getPosition(index);
+        int result = 0;
+        for (Waiter waiter : waiters) {
+            if ((count >= 0) && (result >= count)) {
+                break;
+            }
+            if ((waiter.index == index) && !waiter.notified) {
+                waiter.notified = true;
+                result++;
+            }
+        }
+        if (result > 0) {
+            notifyAll();
+        }
+        return result;
+    }
+
+    ByteBuffer getMemory() {
+        return buffer;
+    }
+
+    private synchronized int update(final int index, final int op, final int value) {
+        int position = getPosition(index);
+        int result = buffer.getInt(position);
+        int updated;
+        switch (op) {
+            case ADD:
+                updated = result + value;
+                break;
+            case SUB:
+                updated = result - value;
+                break;
+            case AND:
+                updated = result & value;
+                break;
+            case OR:
+                updated = result | value;
+                break;
+            case XOR:
+                updated = result ^ value;
+                break;
+            default:
+                updated = value;
+                break;
+        }
+        buffer.putInt(position, updated);
+        return result;
+    }
+
+    private int getPosition(final int index) {
+        if ((index < 0) || (index >= (buffer.capacity() / INT_SIZE))) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        }
+        return index * INT_SIZE;
+    }
+
+    /**
+     * Creates the object behind Atomics in the given runtime. Buffers are
+     * identified by their position in the given list.
+     */
+    static V8Object createAtomics(final V8 runtime, final List<V8SharedBuffer> buffers) {
+        V8Object result = runtime.executeObjectScript(ATOMICS_SCRIPT);
+        result.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return buffers.get(parameters.getInteger(0)).update(parameters.getInteger(2), parameters.getInteger(1),
+                        parameters.getInteger(3));
+            }
+        }, "update");
+        result.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return buffers.get(parameters.getInteger(0)).load(parameters.getInteger(1));
+            }
+        }, "load");
+        result.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return buffers.get(parameters.getInteger(0)).store(parameters.getInteger(1), parameters.getInteger(2));
+            }
+        }, "store");
+        result.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return buffers.get(parameters.getInteger(0)).compareExchange(parameters.getInteger(1), parameters.getInteger(2),
+                        parameters.getInteger(3));
+            }
+        }, "compareExchange");
+        result.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                try {
+                    return buffers.get(parameters.getInteger(0)).waitFor(parameters.getInteger(1), parameters.getInteger(2),
+                            (long) parameters.getDouble(3), runtime);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return "timed-out";
+                }
+            }
+        }, "wait");
+        result.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return buffers.get(parameters.getInteger(0)).wake(parameters.getInteger(1), (int) parameters.getDouble(2));
+            }
+        }, "notify");
+        return result;
+    }
+
+}
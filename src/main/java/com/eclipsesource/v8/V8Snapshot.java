@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A set of bootstrap scripts that new runtimes run before they are handed
+ * out, see {@link V8RuntimeConfig#setSnapshot(V8Snapshot)}. The first
+ * runtime created from a snapshot records the data V8 produces while
+ * compiling each script, and later runtimes compile the scripts from that
+ * data instead of parsing them again.
+ *
+ * A snapshot can be saved to a file. Loading the file memory-maps it, so the
+ * script sources and the compile data are handed to V8 without being copied
+ * onto the Java heap.
+ *
+ * A snapshot may be shared by runtimes created on different threads. The
+ * compile data of a script is published once, by whichever runtime records
+ * it first.
+ */
+public class V8Snapshot {
+
+    private static final int     MAGIC   = 0x4A325653;
+    private static final int     VERSION = 1;
+    private static final Charset UTF8    = Charset.forName("UTF-8");
+
+    private final List<Script>   scripts = new CopyOnWriteArrayList<>();
+
+    private static class Script {
+        String              name;
+        ByteBuffer          source;
+        volatile ByteBuffer compileData;
+    }
+
+    public V8Snapshot addScript(final String script, final String scriptName) {
+        Script result = new Script();
+        result.name = scriptName == null ? "" : scriptName;
+        result.source = toDirectBuffer(script.getBytes(UTF8));
+        scripts.add(result);
+        return this;
+    }
+
+    public int getScriptCount() {
+        return scripts.size();
+    }
+
+    /**
+     * Returns whether every script has compile data, either recorded by a
+     * runtime or loaded from a file.
+     */
+    public boolean isCompiled() {
+        for (Script script : scripts) {
+            if (script.compileData == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void apply(final V8 runtime) {
+        for (Script script : scripts) {
+            ByteBuffer recorded = script.compileData;
+            byte[] compileData = runtime.executeSnapshotScript(script.source, script.name, recorded);
+            if ((recorded == null) && (compileData != null) && (compileData.length > 0)) {
+                script.compileData = toDirectBuffer(compileData);
+            }
+        }
+    }
+
+    public void save(final File file) throws IOException {
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            write(outputStream);
+        }
+    }
+
+    public void write(final OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(scripts.size());
+        for (Script script : scripts) {
+            write(output, ByteBuffer.wrap(script.name.getBytes(UTF8)));
+            write(output, script.source);
+            write(output, script.compileData);
+        }
+        output.flush();
+    }
+
+    private static void write(final DataOutputStream output, final ByteBuffer buffer) throws IOException {
+        if (buffer == null) {
+            output.writeInt(0);
+            return;
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    public static V8Snapshot load(final File file) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+        }
+        if ((buffer.remaining() < 12) || (buffer.getInt() != MAGIC)) {
+            throw new IOException("Not a snapshot: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        V8Snapshot result = new V8Snapshot();
+        try {
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                Script script = new Script();
+                ByteBuffer name = read(buffer);
+                byte[] nameBytes = new byte[name.remaining()];
+                name.get(nameBytes);
+                script.name = new String(nameBytes, UTF8);
+                script.source = read(buffer);
+                ByteBuffer compileData = read(buffer);
+                script.compileData = compileData.hasRemaining() ? compileData : null;
+                result.scripts.add(script);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt snapshot: " + file);
+        }
+        return result;
+    }
+
+    private static ByteBuffer read(final ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if ((length < 0) || (length > buffer.remaining())) {
+            throw new BufferUnderflowException();
+        }
+        ByteBuffer result = buffer.slice();
+        result.limit(length);
+        buffer.position(buffer.position() + length);
+        return result;
+    }
+
+    private static ByteBuffer toDirectBuffer(final byte[] bytes) {
+        ByteBuffer result = ByteBuffer.allocateDirect(bytes.length);
+        result.put(bytes);
+        result.flip();
+        return result;
+    }
+
+}
@@ -21,10 +21,16 @@ abstract public class V8Value {
     public static final int V8_ARRAY = 5;
     public static final int V8_OBJECT = 6;
 
-    protected static int v8ObjectInstanceCounter = 1;
     protected V8 v8;
     protected int objectHandle;
     protected boolean released = true;
+    V8MemoryScope memoryScope;
+    V8ValueReference reference;
+    V8AllocationSite allocationSite;
+    int sharedReferences;
+    int epoch;
+    private int identityHash;
+    private boolean identityHashCached;
 
     public V8Value() {
         super();
@@ -32,7 +38,7 @@ abstract public class V8Value {
 
     protected void initialize(final int runtimeHandle, final int objectHandle) {
         v8._initNewV8Object(runtimeHandle, objectHandle);
-        v8.addObjRef();
+        v8.addObjRef(this);
         released = false;
     }
 
@@ -41,40 +47,71 @@ abstract public class V8Value {
     }
 
     public void release() {
-        V8.checkThread();
+        v8.checkThread();
+        if (!released && isStale()) {
+            // the runtime was reset, the handle is gone already
+            released = true;
+            memoryScope = null;
+            reference = null;
+            allocationSite = null;
+            return;
+        }
+        if (!released && (sharedReferences > 0)) {
+            sharedReferences--;
+            return;
+        }
+        if (memoryScope != null) {
+            memoryScope.detach(this);
+        }
         if ( !released ) {
             released = true;
             v8._release(v8.getV8RuntimeHandle(), objectHandle);
-            v8.releaseObjRef();
+            v8.releaseObjectHandle(objectHandle);
+            v8.releaseObjRef(this);
         }
     }
 
     @Override
     public boolean equals(final Object that) {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
+        if (that == this) {
+            return true;
+        }
         if ((that instanceof V8Object)) {
-            return v8._equals(v8.getV8RuntimeHandle(), getHandle(), ((V8Object) that).getHandle());
+            V8Value other = (V8Value) that;
+            if (identityHashCached && other.identityHashCached && (identityHash != other.identityHash)) {
+                return false;
+            }
+            return v8._equals(v8.getV8RuntimeHandle(), getHandle(), other.getHandle());
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        V8.checkThread();
+        v8.checkThread();
         checkReleaesd();
-        return v8._identityHash(v8.getV8RuntimeHandle(), getHandle());
+        if (!identityHashCached) {
+            identityHash = v8._identityHash(v8.getV8RuntimeHandle(), getHandle());
+            identityHashCached = true;
+        }
+        return identityHash;
     }
 
     public boolean isReleased() {
-        return released;
+        return released || isStale();
+    }
+
+    boolean isStale() {
+        return (v8 != null) && (epoch != v8.currentEpoch);
     }
 
     @Override
     public abstract String toString();
 
     protected void checkReleaesd() {
-        if (released) {
+        if (isReleased()) {
             throw new IllegalStateException("Object released");
         }
     }
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+
+/**
+ * Remembers the handle of a V8Value so it can be released after the wrapper
+ * became unreachable.
+ */
+final class V8ValueReference extends PhantomReference<V8Value> {
+
+    final int              handle;
+    final V8AllocationSite allocationSite;
+
+    V8ValueReference(final V8Value value, final ReferenceQueue<V8Value> queue) {
+        super(value, queue);
+        handle = value.objectHandle;
+        allocationSite = value.allocationSite;
+    }
+
+}
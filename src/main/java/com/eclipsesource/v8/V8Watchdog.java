@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread shared by all runtimes that terminates calls into
+ * JavaScript once their execution timeout has passed. The execution state of
+ * a runtime is only changed while holding the lock on this class, so a
+ * termination can never hit a call other than the one it was meant for. A
+ * termination that arrives after the script already finished is cancelled
+ * when the call returns, so the next call is not affected.
+ */
+final class V8Watchdog implements Runnable {
+
+    private static Set<V8> armedRuntimes = new HashSet<>();
+    private static Thread  thread        = null;
+
+    static synchronized void enter(final V8 runtime, final long timeout) {
+        runtime.executing = true;
+        if (timeout > 0) {
+            runtime.executionDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            armedRuntimes.add(runtime);
+            if (thread == null) {
+                thread = new Thread(new V8Watchdog(), "J2V8 Watchdog");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            V8Watchdog.class.notifyAll();
+        }
+    }
+
+    /**
+     * Returns whether a termination was requested for the call that just
+     * ended, in which case the caller has to cancel it.
+     */
+    static synchronized boolean exit(final V8 runtime) {
+        runtime.executing = false;
+        armedRuntimes.remove(runtime);
+        boolean result = runtime.terminationRequested;
+        runtime.terminationRequested = false;
+        return result;
+    }
+
+    static synchronized boolean terminate(final V8 runtime) {
+        if (!runtime.executing || runtime.terminationRequested) {
+            return false;
+        }
+        runtime.terminationRequested = true;
+        runtime._terminateExecution(runtime.getV8RuntimeHandle());
+        V8SharedBuffer buffer = runtime.waitingOn;
+        if (buffer != null) {
+            buffer.interruptWaiters();
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        synchronized (V8Watchdog.class) {
+            while (true) {
+                long now = System.nanoTime();
+                long timeout = Long.MAX_VALUE;
+                Iterator<V8> iterator = armedRuntimes.iterator();
+                while (iterator.hasNext()) {
+                    V8 runtime = iterator.next();
+                    long remaining = runtime.executionDeadline - now;
+                    if (remaining <= 0) {
+                        iterator.remove();
+                        terminate(runtime);
+                    } else {
+                        timeout = Math.min(timeout, remaining);
+                    }
+                }
+                try {
+                    if (timeout == Long.MAX_VALUE) {
+                        V8Watchdog.class.wait();
+                    } else {
+                        TimeUnit.NANOSECONDS.timedWait(V8Watchdog.class, timeout);
+                    }
+                } catch (InterruptedException e) {
+                    // keep watching, the thread lives as long as the VM
+                }
+            }
+        }
+    }
+
+    private V8Watchdog() {
+
+    }
+
+}
@@ -15,10 +15,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import com.eclipsesource.v8.V8;
 import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Encoder;
 import com.eclipsesource.v8.V8Object;
 import com.eclipsesource.v8.V8Value;
 
@@ -97,31 +97,11 @@ public class V8ObjectUtils {
     }
 
     public static V8Object toV8Object(final V8 v8, final Map<String, ? extends Object> map) {
-        V8Object result = new V8Object(v8);
-        try {
-            for (Entry<String, ? extends Object> entry : map.entrySet()) {
-                setValue(v8, result, entry.getKey(), entry.getValue());
-            }
-        } catch (IllegalStateException e) {
-            result.release();
-            throw e;
-        }
-        return result;
+        return v8.decodeObject(V8Encoder.encode(map));
     }
 
     public static V8Array toV8Array(final V8 v8, final List<? extends Object> list) {
-        V8Array result = new V8Array(v8);
-        try {
-            for (int i = 0; i < list.size(); i++) {
-                Object value = list.get(i);
-                pushValue(v8, result, value);
-            }
-        } catch (IllegalStateException e) {
-            result.release();
-            throw e;
-        }
-
-        return result;
+        return v8.decodeArray(V8Encoder.encode(list));
     }
 
     @SuppressWarnings("unchecked")
@@ -163,35 +143,6 @@ public class V8ObjectUtils {
         }
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    private static void setValue(final V8 v8, final V8Object result, final String key, final Object value) {
-        if (value == null) {
-            result.addUndefined(key);
-        } else if (value instanceof Integer) {
-            result.add(key, (int) value);
-        } else if (value instanceof Long) {
-            result.add(key, (int) (long) value);
-        } else if (value instanceof Double) {
-            result.add(key, (double) value);
-        } else if (value instanceof Float) {
-            result.add(key, (float) value);
-        } else if (value instanceof String) {
-            result.add(key, (String) value);
-        } else if (value instanceof Boolean) {
-            result.add(key, (boolean) value);
-        } else if (value instanceof Map) {
-            V8Object object = toV8Object(v8, (Map) value);
-            result.add(key, object);
-            object.release();
-        } else if (value instanceof List) {
-            V8Array array = toV8Array(v8, (List) value);
-            result.add(key, array);
-            array.release();
-        } else {
-            throw new IllegalStateException("Unsupported Object of type: " + value.getClass());
-        }
-    }
-
     public static Object getValue(final V8Array array, final int index) {
         int valueType = array.getType(index);
         switch (valueType) {
@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.eclipsesource.v8.JavaCallback;
+import com.eclipsesource.v8.JavaVoidCallback;
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8EventLoop;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8RuntimeConfig;
+import com.eclipsesource.v8.V8Value;
+
+/**
+ * Runs a script on its own runtime and thread and exchanges messages with
+ * it, like a web worker. Inside the worker the script has postMessage,
+ * onmessage and close. Messages are copied with {@link V8Object#serialize()},
+ * so objects, arrays, typed arrays and primitives can be sent but functions
+ * can't.
+ *
+ * On the wire a message is a serialized array with the message as its only
+ * element, see {@link #encodeMessage(V8, Object)} and
+ * {@link #decodeMessage(V8, ByteBuffer)}.
+ *
+ * {@link #install(V8EventLoop)} adds a Worker constructor to the runtime of
+ * an event loop, so that JavaScript can start workers itself:
+ *
+ * <pre>
+ * var worker = new Worker("onmessage = function(e) { postMessage(e.data * 2); };");
+ * worker.onmessage = function(e) { ... };
+ * worker.postMessage(21);
+ * </pre>
+ */
+public class V8Worker {
+
+    public interface MessageHandler {
+
+        /**
+         * Called on the worker thread for every message the worker posts.
+         */
+        void onMessage(V8Worker worker, ByteBuffer message);
+
+        /**
+         * Called on the worker thread with errors thrown by the worker script,
+         * its message handler or its timers.
+         */
+        void onError(V8Worker worker, Exception error);
+
+    }
+
+    private static final String WORKER_SCRIPT = "(function(global) {\n"
+            + "  var worker = {\n"
+            + "    dispatch : function(message) {\n"
+            + "      if (typeof global.onmessage === 'function') {\n"
+            + "        global.onmessage({ data : message[0] });\n"
+            + "      }\n"
+            + "    }\n"
+            + "  };\n"
+            + "  global.self = global;\n"
+            + "  global.postMessage = function(data) {\n"
+            + "    worker.post([data]);\n"
+            + "  };\n"
+            + "  global.close = function() {\n"
+            + "    worker.close();\n"
+            + "  };\n"
+            + "  return worker;\n"
+            + "})(this)";
+
+    private static final String HOST_SCRIPT   = "(function(global) {\n"
+            + "  var workers = {};\n"
+            + "  var host = {\n"
+            + "    dispatch : function(id, message) {\n"
+            + "      var worker = workers[id];\n"
+            + "      if (worker && typeof worker.onmessage === 'function') {\n"
+            + "        worker.onmessage({ data : message[0] });\n"
+            + "      }\n"
+            + "    },\n"
+            + "    error : function(id, message) {\n"
+            + "      var worker = workers[id];\n"
+            + "      if (worker && typeof worker.onerror === 'function') {\n"
+            + "        worker.onerror({ message : message });\n"
+            + "      }\n"
+            + "    },\n"
+            + "    remove : function(id) {\n"
+            + "      delete workers[id];\n"
+            + "    }\n"
+            + "  };\n"
+            + "  global.Worker = function(script) {\n"
+            + "    var id = host.create(String(script));\n"
+            + "    workers[id] = this;\n"
+            + "    this.postMessage = function(data) {\n"
+            + "      host.post(id, [data]);\n"
+            + "    };\n"
+            + "    this.terminate = function() {\n"
+            + "      delete workers[id];\n"
+            + "      host.terminate(id);\n"
+            + "    };\n"
+            + "  };\n"
+            + "  return host;\n"
+            + "})(this)";
+
+    private final String         name;
+    private final String         script;
+    private final V8EventLoop    loop;
+    private final MessageHandler handler;
+    private V8Object             scope;
+
+    public V8Worker(final String name, final String script, final MessageHandler handler) {
+        this(name, script, new V8RuntimeConfig(), handler);
+    }
+
+    public V8Worker(final String name, final String script, final V8RuntimeConfig config, final MessageHandler handler) {
+        this.name = name;
+        this.script = script;
+        this.handler = handler;
+        loop = new V8EventLoop(name, config);
+        loop.setErrorHandler(new V8EventLoop.ErrorHandler() {
+
+            @Override
+            public void handleError(final V8EventLoop eventLoop, final Exception error) {
+                V8Worker.this.handler.onError(V8Worker.this, error);
+            }
+        });
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                initialize();
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V8EventLoop getEventLoop() {
+        return loop;
+    }
+
+    public void start() {
+        loop.start();
+    }
+
+    /**
+     * Posts a message produced by {@link #encodeMessage(V8, Object)} to the
+     * worker. May be called from any thread.
+     */
+    public void postMessage(final ByteBuffer message) {
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                dispatch(message);
+            }
+        });
+    }
+
+    public void terminate() {
+        loop.shutdown();
+    }
+
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return loop.awaitTermination(timeout, unit);
+    }
+
+    public boolean isTerminated() {
+        return loop.isTerminated();
+    }
+
+    /**
+     * Serializes a message in the given runtime. The value can be an Integer,
+     * Double, Boolean, String, V8Value or null.
+     */
+    public static ByteBuffer encodeMessage(final V8 runtime, final Object value) {
+        V8Array message = new V8Array(runtime);
+        try {
+            if (value == null) {
+                message.pushUndefined();
+            } else if (value instanceof Integer) {
+                message.push((Integer) value);
+            } else if (value instanceof Double) {
+                message.push((Double) value);
+            } else if (value instanceof Boolean) {
+                message.push((Boolean) value);
+            } else if (value instanceof String) {
+                message.push((String) value);
+            } else if (value instanceof V8Value) {
+                message.push((V8Value) value);
+            } else {
+                throw new IllegalArgumentException("Unsupported message of type: " + value.getClass());
+            }
+            return message.serialize();
+        } finally {
+            message.release();
+        }
+    }
+
+    /**
+     * Creates a message in the given runtime. Objects and arrays returned
+     * have to be released by the caller.
+     */
+    public static Object decodeMessage(final V8 runtime, final ByteBuffer message) {
+        V8Array array = (V8Array) runtime.deserialize(message);
+        try {
+            return array.get(0);
+        } finally {
+            array.release();
+        }
+    }
+
+    /**
+     * Adds a Worker constructor to the runtime of the given event loop. Must
+     * be called on the loop thread. Messages and errors from the workers are
+     * delivered on the loop thread as well, and are dropped once the loop
+     * shut down. Workers that close themselves are forgotten, the ones still
+     * running when the loop shuts down are terminated.
+     */
+    public static void install(final V8EventLoop loop) {
+        final V8 runtime = loop.getRuntime();
+        final V8Object host = runtime.executeObjectScript(HOST_SCRIPT);
+        final Map<Integer, V8Worker> workers = new HashMap<>();
+        loop.addShutdownListener(new Runnable() {
+
+            @Override
+            public void run() {
+                for (V8Worker worker : workers.values()) {
+                    worker.terminate();
+                }
+                workers.clear();
+            }
+        });
+        host.registerJavaMethod(new JavaCallback() {
+
+            private int counter = 0;
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                final int id = ++counter;
+                V8Worker worker = new V8Worker("V8Worker-" + id, parameters.getString(0), new MessageHandler() {
+
+                    @Override
+                    public void onMessage(final V8Worker source, final ByteBuffer message) {
+                        executeOnHost(loop, new Runnable() {
+
+                            @Override
+                            public void run() {
+                                V8Object data = runtime.deserialize(message);
+                                V8Array dispatchParameters = new V8Array(runtime).push(id).push(data);
+                                try {
+                                    host.executeVoidFunction("dispatch", dispatchParameters);
+                                } finally {
+                                    dispatchParameters.release();
+                                    data.release();
+                                }
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(final V8Worker source, final Exception error) {
+                        final String message = String.valueOf(error.getMessage());
+                        executeOnHost(loop, new Runnable() {
+
+                            @Override
+                            public void run() {
+                                V8Array errorParameters = new V8Array(runtime).push(id).push(message);
+                                try {
+                                    host.executeVoidFunction("error", errorParameters);
+                                } finally {
+                                    errorParameters.release();
+                                }
+                            }
+                        });
+                    }
+                });
+                workers.put(id, worker);
+                worker.getEventLoop().addShutdownListener(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        executeOnHost(loop, new Runnable() {
+
+                            @Override
+                            public void run() {
+                                if (workers.remove(id) == null) {
+                                    return;
+                                }
+                                V8Array removeParameters = new V8Array(runtime).push(id);
+                                try {
+                                    host.executeVoidFunction("remove", removeParameters);
+                                } finally {
+                                    removeParameters.release();
+                                }
+                            }
+                        });
+                    }
+                });
+                worker.start();
+                return id;
+            }
+        }, "create");
+        host.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                V8Worker worker = workers.get(parameters.getInteger(0));
+                V8Array message = parameters.getArray(1);
+                try {
+                    if (worker != null) {
+                        worker.postMessage(message.serialize());
+                    }
+                } finally {
+                    message.release();
+                }
+            }
+        }, "post");
+        host.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                V8Worker worker = workers.remove(parameters.getInteger(0));
+                if (worker != null) {
+                    worker.terminate();
+                }
+            }
+        }, "terminate");
+    }
+
+    private static void executeOnHost(final V8EventLoop loop, final Runnable task) {
+        try {
+            loop.execute(task);
+        } catch (RejectedExecutionException e) {
+            // the host loop shut down, there is no one left to notify
+        }
+    }
+
+    private void initialize() {
+        V8 runtime = loop.getRuntime();
+        scope = runtime.executeObjectScript(WORKER_SCRIPT);
+        scope.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                V8Array message = parameters.getArray(0);
+                try {
+                    handler.onMessage(V8Worker.this, message.serialize());
+                } finally {
+                    message.release();
+                }
+            }
+        }, "post");
+        scope.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                loop.shutdown();
+            }
+        }, "close");
+        runtime.executeVoidScript(script, name, 0);
+    }
+
+    private void dispatch(final ByteBuffer message) {
+        V8 runtime = loop.getRuntime();
+        V8Object data = runtime.deserialize(message);
+        V8Array parameters = new V8Array(runtime).push(data);
+        try {
+            scope.executeVoidFunction("dispatch", parameters);
+        } finally {
+            parameters.release();
+            data.release();
+        }
+    }
+
+}
@@ -15,12 +15,15 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 import com.eclipsesource.v8.utils.tests.V8ObjectUtilsTest;
+import com.eclipsesource.v8.utils.tests.V8WorkerTest;
 
 @RunWith(Suite.class)
 // V8RuntimeNotLoadedTest must be run first. This is because we need to test when the natives are not loaded
 // and once the V8 class is loaded we cannot unload it.
 @SuiteClasses({ V8RuntimeNotLoadedTest.class, V8ObjectTest.class, V8Test.class, V8ArrayTest.class, V8JSFunctionCallTest.class,
-        V8CallbackTest.class, V8ScriptCompilationExceptionTest.class, V8ScriptExecutionExceptionTest.class, V8ObjectUtilsTest.class })
+        V8CallbackTest.class, V8ScriptCompilationExceptionTest.class, V8ScriptExecutionExceptionTest.class, V8ObjectUtilsTest.class,
+        HandleAllocatorTest.class, V8MemoryScopeTest.class, V8ContextTest.class,
+        V8SnapshotTest.class, V8FutureTest.class, V8EventLoopTest.class, V8WorkerTest.class, V8SharedBufferTest.class })
 public class AllTests {
 
 }
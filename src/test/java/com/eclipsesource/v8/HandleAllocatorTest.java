@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HandleAllocatorTest {
+
+    @Test
+    public void testAllocateStartsAtFirstIndex() {
+        HandleAllocator allocator = new HandleAllocator(1);
+
+        assertEquals(1, allocator.allocate());
+        assertEquals(2, allocator.allocate());
+    }
+
+    @Test
+    public void testReleasedIndexIsReused() {
+        HandleAllocator allocator = new HandleAllocator(1);
+        allocator.allocate();
+        int handle = allocator.allocate();
+
+        allocator.release(handle);
+        int result = allocator.allocate();
+
+        assertEquals(HandleAllocator.getIndex(handle), HandleAllocator.getIndex(result));
+        assertNotEquals(handle, result);
+    }
+
+    @Test
+    public void testGenerationIsIncrementedOnRelease() {
+        HandleAllocator allocator = new HandleAllocator(1);
+        int handle = allocator.allocate();
+
+        allocator.release(handle);
+        int result = allocator.allocate();
+
+        assertEquals(0, HandleAllocator.getGeneration(handle));
+        assertEquals(1, HandleAllocator.getGeneration(result));
+    }
+
+    @Test
+    public void testGenerationWrapsAround() {
+        HandleAllocator allocator = new HandleAllocator(1);
+        int handle = allocator.allocate();
+
+        for (int i = 0; i <= HandleAllocator.GENERATION_MASK; i++) {
+            allocator.release(handle);
+            handle = allocator.allocate();
+        }
+
+        assertEquals(1, HandleAllocator.getIndex(handle));
+        assertEquals(0, HandleAllocator.getGeneration(handle));
+    }
+
+    @Test
+    public void testHandlesStayPositive() {
+        HandleAllocator allocator = new HandleAllocator(HandleAllocator.INDEX_MASK);
+        int handle = allocator.allocate();
+
+        for (int i = 0; i < HandleAllocator.GENERATION_MASK; i++) {
+            allocator.release(handle);
+            handle = allocator.allocate();
+        }
+
+        assertEquals(HandleAllocator.GENERATION_MASK, HandleAllocator.getGeneration(handle));
+        assertTrue(handle > 0);
+    }
+
+    @Test
+    public void testManyCyclesDoNotGrowIndex() {
+        HandleAllocator allocator = new HandleAllocator(1);
+
+        for (int i = 0; i < 100000; i++) {
+            allocator.release(allocator.allocate());
+        }
+
+        assertEquals(1, HandleAllocator.getIndex(allocator.allocate()));
+    }
+
+    @Test
+    public void testLiveCount() {
+        HandleAllocator allocator = new HandleAllocator(1);
+        int handle = allocator.allocate();
+        allocator.allocate();
+
+        allocator.release(handle);
+
+        assertEquals(1, allocator.getLiveCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTooManyHandles() {
+        HandleAllocator allocator = new HandleAllocator(HandleAllocator.INDEX_MASK);
+        allocator.allocate();
+
+        allocator.allocate();
+    }
+
+}
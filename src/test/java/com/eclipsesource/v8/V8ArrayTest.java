@@ -17,6 +17,8 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import static com.eclipsesource.v8.V8Value.BOOLEAN;
@@ -1443,4 +1445,80 @@ public class V8ArrayTest {
         a.release();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testExtractColumns() {
+        V8Array array = v8.executeArrayScript("[{id: 1, score: 0.5, flag: true, name: 'a'}, {id: 2, score: 1.5, flag: false, name: 'b'}]");
+
+        Object[] columns = array.extractColumns(new String[] { "id", "score", "flag", "name" }, new int[] { INTEGER, DOUBLE, BOOLEAN, STRING });
+
+        assertEquals(4, columns.length);
+        assertEquals(2, ((int[]) columns[0])[1]);
+        assertEquals(0.5, ((double[]) columns[1])[0], 0.000001);
+        assertTrue(((boolean[]) columns[2])[0]);
+        assertFalse(((boolean[]) columns[2])[1]);
+        assertEquals("b", ((String[]) columns[3])[1]);
+        array.release();
+    }
+
+    @Test
+    public void testExtractColumnsFromEmptyArray() {
+        V8Array array = v8.executeArrayScript("[]");
+
+        Object[] columns = array.extractColumns(new String[] { "id" }, new int[] { INTEGER });
+
+        assertEquals(0, ((int[]) columns[0]).length);
+        array.release();
+    }
+
+    @Test(expected = V8ResultUndefined.class)
+    public void testExtractColumnsMissingKey() {
+        V8Array array = v8.executeArrayScript("[{id: 1}, {score: 2}]");
+
+        try {
+            array.extractColumns(new String[] { "id" }, new int[] { INTEGER });
+        } finally {
+            array.release();
+        }
+    }
+
+    @Test(expected = V8ResultUndefined.class)
+    public void testExtractColumnsFromNonObjectElement() {
+        V8Array array = v8.executeArrayScript("[{id: 1}, 2]");
+
+        try {
+            array.extractColumns(new String[] { "id" }, new int[] { INTEGER });
+        } finally {
+            array.release();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExtractColumnsUnsupportedType() {
+        V8Array array = v8.executeArrayScript("[{id: 1}]");
+
+        try {
+            array.extractColumns(new String[] { "id" }, new int[] { V8_OBJECT });
+        } finally {
+            array.release();
+        }
+    }
+
+    @Test
+    public void testIdentityCacheGetObject() {
+        v8.setIdentityCache(true);
+        V8Array array = v8.executeArrayScript("var o = {foo : 7}; [o, o, {}]");
+
+        V8Object first = array.getObject(0);
+        V8Object second = array.getObject(1);
+        V8Object third = array.getObject(2);
+
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertEquals(7, second.getInteger("foo"));
+        array.release();
+        first.release();
+        second.release();
+        third.release();
+    }
+
+}
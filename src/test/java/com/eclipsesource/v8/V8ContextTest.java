@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class V8ContextTest {
+
+    private V8 v8;
+
+    @Before
+    public void seutp() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            v8.release();
+            if (V8.getActiveRuntimes() != 0) {
+                throw new IllegalStateException("V8Runtimes not properly released.");
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testExecuteScriptInContext() {
+        V8Context context = new V8Context(v8);
+
+        assertEquals(3, context.executeIntScript("1 + 2"));
+        context.release();
+    }
+
+    @Test
+    public void testContextHasOwnGlobals() {
+        V8Context context = new V8Context(v8);
+        v8.executeVoidScript("var foo = 'runtime';");
+        context.executeVoidScript("var foo = 'context';");
+
+        assertEquals("runtime", v8.executeStringScript("foo"));
+        assertEquals("context", context.executeStringScript("foo"));
+        context.release();
+    }
+
+    @Test
+    public void testContextsAreIsolated() {
+        V8Context context1 = new V8Context(v8);
+        V8Context context2 = new V8Context(v8);
+        context1.executeVoidScript("var foo = 7;");
+
+        assertEquals("undefined", context2.executeStringScript("typeof foo"));
+        assertFalse(v8.contains("foo"));
+        context1.release();
+        context2.release();
+    }
+
+    @Test
+    public void testContextIsGlobalObject() {
+        V8Context context = new V8Context(v8);
+        context.add("foo", 7);
+
+        assertEquals(7, context.executeIntScript("foo"));
+        context.executeVoidScript("var bar = 'baz';");
+        assertEquals("baz", context.getString("bar"));
+        context.release();
+    }
+
+    @Test
+    public void testExecuteFunctionInContext() {
+        V8Context context = new V8Context(v8);
+        context.executeVoidScript("var foo = 7; function getFoo() { return foo; }");
+        v8.executeVoidScript("var foo = 3;");
+
+        assertEquals(7, context.executeIntFunction("getFoo", null));
+        context.release();
+    }
+
+    @Test
+    public void testObjectScriptInContext() {
+        V8Context context = new V8Context(v8);
+        V8Object result = context.executeObjectScript("({foo : 'bar'})");
+
+        assertEquals("bar", result.getString("foo"));
+        result.release();
+        context.release();
+    }
+
+    @Test
+    public void testCallbackInContext() {
+        V8Context context = new V8Context(v8);
+        context.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return parameters.getInteger(0) * 2;
+            }
+        }, "twice");
+
+        assertEquals(14, context.executeIntScript("twice(7)"));
+        context.release();
+    }
+
+    @Test
+    public void testRuntimeScriptFromContextCallback() {
+        final V8Context context = new V8Context(v8);
+        v8.executeVoidScript("var foo = 'runtime';");
+        context.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return v8.executeStringScript("foo");
+            }
+        }, "runtimeFoo");
+
+        assertEquals("runtime", context.executeStringScript("runtimeFoo()"));
+        assertEquals("undefined", context.executeStringScript("typeof foo"));
+        context.release();
+    }
+
+    @Test
+    public void testReleaseWhileExecutingFails() {
+        final V8Context context = new V8Context(v8);
+        context.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                context.release();
+            }
+        }, "release");
+
+        try {
+            context.executeVoidScript("release();");
+        } catch (RuntimeException e) {
+            assertFalse(context.isReleased());
+            context.release();
+            return;
+        }
+        fail("Context released while executing.");
+    }
+
+    @Test
+    public void testReleaseContext() {
+        V8Context context = new V8Context(v8);
+        context.release();
+
+        assertTrue(context.isReleased());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecuteOnReleasedContext() {
+        V8Context context = new V8Context(v8);
+        context.release();
+
+        context.executeVoidScript("var foo = 7;");
+    }
+
+    @Test
+    public void testExecuteScriptReleasesCollectedValues() throws InterruptedException {
+        V8Context context = new V8Context(v8);
+        v8.setAutoRelease(true);
+        for (int i = 0; i < 10; i++) {
+            new V8Object(v8);
+        }
+
+        for (int i = 0; (i < 50) && (v8.getAutoReleasedCount() < 10); i++) {
+            System.gc();
+            Thread.sleep(10);
+            context.executeScript("1");
+        }
+
+        assertEquals(10, v8.getAutoReleasedCount());
+        context.release();
+    }
+
+    @Test
+    public void testExecuteScriptRunsMicrotasks() {
+        V8Context context = new V8Context(v8);
+
+        context.executeScript("var resolved = false; Promise.resolve().then(function() { resolved = true; });");
+
+        assertTrue(context.executeBooleanScript("resolved"));
+        context.release();
+    }
+
+}
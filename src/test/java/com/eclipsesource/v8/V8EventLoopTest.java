@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class V8EventLoopTest {
+
+    private V8EventLoop loop;
+
+    @Before
+    public void seutp() {
+        loop = new V8EventLoop("V8EventLoopTest", new V8RuntimeConfig());
+        loop.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+        if (V8.getActiveRuntimes() != 0) {
+            System.out.println("V8Runtimes not properly released.");
+        }
+    }
+
+    private Object runScript(final String script) throws Exception {
+        final V8Future<Object> result = new V8Future<>();
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                V8 v8 = loop.getRuntime();
+                v8.registerJavaMethod(new JavaVoidCallback() {
+
+                    @Override
+                    public void invoke(final V8Array parameters) {
+                        result.complete(parameters.get(0));
+                    }
+                }, "done");
+                v8.executeVoidScript(script);
+            }
+        });
+        return result.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        V8Future<Integer> result = loop.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                return loop.getRuntime().executeIntScript("1 + 2");
+            }
+        });
+
+        assertEquals(3, (int) result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSubmitFailure() throws Exception {
+        V8Future<Integer> result = loop.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                return loop.getRuntime().executeIntScript("throw 'fail';");
+            }
+        });
+
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected exception");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof V8ScriptExecutionException);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRuntimeOnlyOnLoopThread() {
+        loop.getRuntime();
+    }
+
+    @Test
+    public void testSetTimeout() throws Exception {
+        Object result = runScript("setTimeout(function(value) { done(value); }, 10, 'foo');");
+
+        assertEquals("foo", result);
+    }
+
+    @Test
+    public void testTimersFireInDeadlineOrder() throws Exception {
+        Object result = runScript("var order = [];\n"
+                + "setTimeout(function() { order.push(3); done(order.join()); }, 30);\n"
+                + "setTimeout(function() { order.push(1); }, 0);\n"
+                + "setTimeout(function() { order.push(2); }, 0);\n");
+
+        assertEquals("1,2,3", result);
+    }
+
+    @Test
+    public void testTimerBeyondOneWheelTurn() throws Exception {
+        Object result = runScript("var start = Date.now(); setTimeout(function() { done(Date.now() - start >= 590); }, 600);");
+
+        assertEquals(true, result);
+    }
+
+    @Test
+    public void testClearTimeout() throws Exception {
+        Object result = runScript("var fired = false;\n"
+                + "var id = setTimeout(function() { fired = true; }, 5);\n"
+                + "clearTimeout(id);\n"
+                + "setTimeout(function() { done(fired); }, 20);\n");
+
+        assertEquals(false, result);
+    }
+
+    @Test
+    public void testSetInterval() throws Exception {
+        Object result = runScript("var count = 0;\n"
+                + "var id = setInterval(function() {\n"
+                + "  if (++count === 3) { clearInterval(id); setTimeout(function() { done(count); }, 20); }\n"
+                + "}, 2);\n");
+
+        assertEquals(3, result);
+    }
+
+    @Test
+    public void testPromiseContinuationRunsOnLoop() throws Exception {
+        Object result = runScript("Promise.resolve(4).then(function(value) { setTimeout(function() { done(value * 2); }, 1); });");
+
+        assertEquals(8, result);
+    }
+
+    @Test
+    public void testErrorHandler() throws Exception {
+        final V8Future<Exception> error = new V8Future<>();
+        loop.setErrorHandler(new V8EventLoop.ErrorHandler() {
+
+            @Override
+            public void handleError(final V8EventLoop eventLoop, final Exception e) {
+                error.complete(e);
+            }
+        });
+
+        Object result = runScript("setTimeout(function() { throw 'fail'; }, 1); setTimeout(function() { done('next'); }, 5);");
+
+        assertEquals("next", result);
+        assertTrue(error.get(5, TimeUnit.SECONDS) instanceof V8ScriptExecutionException);
+    }
+
+    @Test
+    public void testErrorWithoutHandlerStopsLoop() throws Exception {
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(loop.isTerminated());
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        runScript("setTimeout(function() { done(true); }, 1);");
+
+        assertTrue(loop.getDispatchedTaskCount() >= 1);
+        assertEquals(1, loop.getDispatchedTimerCount());
+        assertTrue(loop.getTurnCount() >= 1);
+        assertTrue(loop.getMaxLagMicros() >= loop.getAverageLagMicros());
+    }
+
+    @Test
+    public void testShutdownRejectsTasks() throws Exception {
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+
+        try {
+            loop.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                }
+            });
+            fail("Expected exception");
+        } catch (RejectedExecutionException e) {
+            assertFalse(loop.isLoopThread());
+        }
+    }
+
+    @Test
+    public void testIdleNotificationAfterWork() throws Exception {
+        loop.setIdleNotification(5, 10);
+
+        runScript("var garbage = []; for (var i = 0; i < 10000; i++) { garbage.push({ value : i }); } done(true);");
+
+        long end = System.currentTimeMillis() + 5000;
+        while ((loop.getIdleNotificationCount() == 0) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(5);
+        }
+        assertTrue(loop.getIdleNotificationCount() > 0);
+    }
+
+    @Test
+    public void testIdleNotificationDisabledByDefault() throws Exception {
+        runScript("done(true);");
+        Thread.sleep(50);
+
+        assertEquals(0, loop.getIdleNotificationCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIdleNotificationRequiresIdleTime() {
+        loop.setIdleNotification(5, 0);
+    }
+
+    @Test
+    public void testLowMemoryNotification() throws Exception {
+        loop.lowMemoryNotification();
+
+        assertEquals(true, runScript("done(true);"));
+    }
+
+    @Test
+    public void testSubmitThenShutdownFailsFuture() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                running.countDown();
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        V8Future<Integer> result = loop.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                return 1;
+            }
+        });
+
+        loop.shutdown();
+        proceed.countDown();
+
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected exception");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+    }
+
+    @Test
+    public void testErrorWithoutHandlerFailsPendingFutures() throws Exception {
+        final CountDownLatch proceed = new CountDownLatch(1);
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                throw new IllegalStateException();
+            }
+        });
+        V8Future<Integer> result = loop.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                return 1;
+            }
+        });
+        proceed.countDown();
+
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected exception");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+    }
+
+    @Test
+    public void testFailedRuntimeCreationShutsLoopDown() throws Exception {
+        V8EventLoop failing = new V8EventLoop("failing", new V8RuntimeConfig().setSnapshot(new V8Snapshot().addScript("throw 'fail';", "fail.js")));
+        failing.start();
+
+        assertTrue(failing.awaitTermination(5, TimeUnit.SECONDS));
+        try {
+            failing.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                }
+            });
+            fail("Expected exception");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class V8FutureTest {
+
+    private V8 v8;
+
+    @Before
+    public void seutp() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            v8.release();
+            if (V8.getActiveRuntimes() != 0) {
+                throw new IllegalStateException("V8Runtimes not properly released.");
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMicrotasksRunAfterScript() {
+        v8.executeVoidScript("var result = 0; Promise.resolve(7).then(function(value) { result = value; });");
+
+        assertEquals(7, v8.executeIntScript("result"));
+    }
+
+    @Test
+    public void testMicrotasksDeferredWithoutAutoRun() {
+        v8.setAutoRunMicrotasks(false);
+        v8.executeVoidScript("var result = 0; Promise.resolve(7).then(function(value) { result = value; });");
+
+        assertEquals(0, v8.executeIntScript("result"));
+        v8.runMicrotasks();
+        assertEquals(7, v8.executeIntScript("result"));
+    }
+
+    @Test
+    public void testFutureFromResolvedPromise() throws Exception {
+        V8Object promise = v8.executeObjectScript("Promise.resolve('foo')");
+
+        V8Future<Object> future = v8.toFuture(promise);
+
+        assertTrue(future.isDone());
+        assertEquals("foo", future.get());
+        promise.release();
+    }
+
+    @Test
+    public void testFutureFromPromiseResolvedLater() throws Exception {
+        V8Object promise = v8.executeObjectScript("var resolveLater; new Promise(function(resolve) { resolveLater = resolve; })");
+        V8Future<Object> future = v8.toFuture(promise);
+
+        assertFalse(future.isDone());
+        v8.executeVoidScript("resolveLater(7)");
+        assertEquals(7, future.getNow());
+        promise.release();
+    }
+
+    @Test
+    public void testFutureFromRejectedPromise() {
+        V8Object promise = v8.executeObjectScript("Promise.reject(new Error('failed'))");
+
+        V8Future<Object> future = v8.toFuture(promise);
+
+        try {
+            future.getNow();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof V8PromiseRejectedException);
+            assertEquals("Error: failed", e.getCause().getMessage());
+            return;
+        } finally {
+            promise.release();
+        }
+        fail("Future not rejected.");
+    }
+
+    @Test
+    public void testFutureWithObjectValue() throws Exception {
+        V8Object promise = v8.executeObjectScript("Promise.resolve({foo : 'bar'})");
+
+        V8Object result = (V8Object) v8.toFuture(promise).getNow();
+
+        assertEquals("bar", result.getString("foo"));
+        result.release();
+        promise.release();
+    }
+
+    @Test
+    public void testPromiseFromCompletedFuture() {
+        V8Future<Integer> future = new V8Future<>();
+        future.complete(7);
+        V8Object promise = v8.toPromise(future);
+        v8.add("promise", promise);
+
+        v8.executeVoidScript("var result = 0; promise.then(function(value) { result = value; });");
+        v8.runMicrotasks();
+
+        assertEquals(7, v8.executeIntScript("result"));
+        promise.release();
+    }
+
+    @Test
+    public void testPromiseFromFutureCompletedOnOtherThread() throws InterruptedException {
+        final V8Future<String> future = new V8Future<>();
+        V8Object promise = v8.toPromise(future);
+        v8.add("promise", promise);
+        v8.executeVoidScript("var result = null; promise.then(function(value) { result = value; });");
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                future.complete("foo");
+            }
+        });
+
+        thread.start();
+        thread.join();
+        v8.runMicrotasks();
+
+        assertEquals("foo", v8.executeStringScript("result"));
+        promise.release();
+    }
+
+    @Test
+    public void testPromiseFromFailedFuture() {
+        V8Future<String> future = new V8Future<>();
+        V8Object promise = v8.toPromise(future);
+        v8.add("promise", promise);
+        v8.executeVoidScript("var result = null; promise.then(null, function(reason) { result = reason; });");
+
+        future.completeExceptionally(new IllegalStateException("failed"));
+        v8.runMicrotasks();
+
+        assertEquals("failed", v8.executeStringScript("result"));
+        promise.release();
+    }
+
+    @Test
+    public void testPendingFutureFailsOnRelease() {
+        V8 runtime = V8.createV8Runtime();
+        V8Object promise = runtime.executeObjectScript("new Promise(function() {})");
+        V8Future<Object> future = runtime.toFuture(promise);
+        promise.release();
+
+        runtime.release();
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testPendingPromiseReleasedWithRuntime() {
+        V8 runtime = V8.createV8Runtime();
+        V8Object promise = runtime.toPromise(new V8Future<Object>());
+        promise.release();
+
+        runtime.release(true);
+    }
+
+    @Test
+    public void testCompleteOnlyOnce() throws Exception {
+        V8Future<Integer> future = new V8Future<>();
+
+        assertTrue(future.complete(1));
+        assertFalse(future.complete(2));
+        assertEquals(1, (int) future.get());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testCancel() throws Exception {
+        V8Future<Integer> future = new V8Future<>();
+
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        future.get();
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testGetTimesOut() throws Exception {
+        new V8Future<Integer>().get(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testListenerNotified() {
+        final int[] notified = new int[1];
+        V8Future<Integer> future = new V8Future<>();
+        future.addListener(new V8Future.Listener<Integer>() {
+
+            @Override
+            public void completed(final V8Future<Integer> completed) {
+                notified[0]++;
+            }
+        });
+
+        future.complete(7);
+
+        assertEquals(1, notified[0]);
+    }
+
+    @Test
+    public void testListenerAddedAfterCompletion() {
+        final int[] notified = new int[1];
+        V8Future<Integer> future = new V8Future<>();
+        future.complete(7);
+
+        future.addListener(new V8Future.Listener<Integer>() {
+
+            @Override
+            public void completed(final V8Future<Integer> completed) {
+                notified[0]++;
+            }
+        });
+
+        assertEquals(1, notified[0]);
+    }
+
+}
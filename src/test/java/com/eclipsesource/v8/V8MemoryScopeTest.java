@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class V8MemoryScopeTest {
+
+    private V8 v8;
+
+    @Before
+    public void seutp() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            v8.release();
+            if (V8.getActiveRuntimes() != 0) {
+                throw new IllegalStateException("V8Runtimes not properly released.");
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCloseReleasesObjects() {
+        V8Object object;
+        V8Array array;
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            object = new V8Object(v8);
+            array = new V8Array(v8);
+        }
+
+        assertTrue(object.isReleased());
+        assertTrue(array.isReleased());
+    }
+
+    @Test
+    public void testCloseReleasesScriptResults() {
+        V8Object object;
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            object = v8.executeObjectScript("({foo : 7})");
+            assertEquals(7, object.getInteger("foo"));
+        }
+
+        assertTrue(object.isReleased());
+    }
+
+    @Test
+    public void testNoLeaksReportedAfterClose() {
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            for (int i = 0; i < 1000; i++) {
+                new V8Object(v8);
+            }
+        }
+
+        v8.release(true);
+        v8 = V8.createV8Runtime();
+    }
+
+    @Test
+    public void testObjectsReleasedInsideScope() {
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            for (int i = 0; i < 1000; i++) {
+                new V8Object(v8).release();
+            }
+
+            assertEquals(0, scope.getSize());
+        }
+    }
+
+    @Test
+    public void testGetSize() {
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            new V8Object(v8);
+            new V8Array(v8).release();
+
+            assertEquals(1, scope.getSize());
+        }
+    }
+
+    @Test
+    public void testPromoteOutOfScope() {
+        V8Object object;
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            object = scope.promote(new V8Object(v8));
+        }
+
+        assertFalse(object.isReleased());
+        object.release();
+    }
+
+    @Test
+    public void testPromoteToEnclosingScope() {
+        V8Object object;
+        try (V8MemoryScope outer = new V8MemoryScope(v8)) {
+            try (V8MemoryScope inner = new V8MemoryScope(v8)) {
+                object = inner.promote(new V8Object(v8));
+            }
+
+            assertFalse(object.isReleased());
+            assertEquals(1, outer.getSize());
+        }
+
+        assertTrue(object.isReleased());
+    }
+
+    @Test
+    public void testNestedScopeReleasesOnlyItsObjects() {
+        try (V8MemoryScope outer = new V8MemoryScope(v8)) {
+            V8Object outerObject = new V8Object(v8);
+            V8Object innerObject;
+            try (V8MemoryScope inner = new V8MemoryScope(v8)) {
+                innerObject = new V8Object(v8);
+            }
+
+            assertTrue(innerObject.isReleased());
+            assertFalse(outerObject.isReleased());
+        }
+    }
+
+    @Test
+    public void testCloseTwice() {
+        V8MemoryScope scope = new V8MemoryScope(v8);
+        new V8Object(v8);
+
+        scope.close();
+        scope.close();
+
+        assertTrue(scope.isClosed());
+    }
+
+    @Test
+    public void testReleasedHandlesAreRecycled() {
+        int handle;
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            handle = new V8Object(v8).getHandle();
+        }
+
+        V8Object object = new V8Object(v8);
+
+        assertEquals(HandleAllocator.getIndex(handle), HandleAllocator.getIndex(object.getHandle()));
+        object.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPromoteUnscopedValue() {
+        V8Object object = new V8Object(v8);
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            scope.promote(object);
+        } finally {
+            object.release();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPromoteAfterClose() {
+        V8MemoryScope scope = new V8MemoryScope(v8);
+        V8Object object = new V8Object(v8);
+        scope.close();
+
+        scope.promote(object);
+    }
+
+    @Test
+    public void testCloseKeepsObjectSharedThroughIdentityCache() {
+        v8.setIdentityCache(true);
+        V8Object parent = v8.executeObjectScript("({a : {foo : 'bar'}})");
+        V8Object outside = parent.getObject("a");
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            assertSame(outside, parent.getObject("a"));
+        }
+
+        assertFalse(outside.isReleased());
+        assertEquals("bar", outside.getString("foo"));
+        outside.release();
+        assertTrue(outside.isReleased());
+        parent.release();
+        assertEquals(0, v8.objectReferences);
+    }
+
+    @Test
+    public void testCloseReleasesObjectFetchedTwiceInScope() {
+        v8.setIdentityCache(true);
+        V8Object parent = v8.executeObjectScript("({a : {}})");
+        V8Object child;
+        try (V8MemoryScope scope = new V8MemoryScope(v8)) {
+            child = parent.getObject("a");
+            assertSame(child, parent.getObject("a"));
+        }
+
+        assertTrue(child.isReleased());
+        parent.release();
+        assertEquals(0, v8.objectReferences);
+    }
+
+}
@@ -10,6 +10,13 @@
  ******************************************************************************/
 package com.eclipsesource.v8;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -19,6 +26,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -730,4 +738,607 @@ public class V8ObjectTest {
         a.release();
     }
 
+    @Test
+    public void testToJsonDirectBuffer() {
+        V8Object object = v8.executeObjectScript("x = {a: 1, b: 'caf\u00e9'}; x;");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+
+        int length = object.toJson(buffer);
+
+        buffer.flip();
+        assertEquals(length, buffer.remaining());
+        assertEquals("{\"a\":1,\"b\":\"caf\u00e9\"}", Charset.forName("UTF-8").decode(buffer).toString());
+        object.release();
+    }
+
+    @Test
+    public void testToJsonHeapBuffer() {
+        V8Object object = v8.executeObjectScript("x = [1, 2, 3]; x;");
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+
+        object.toJson(buffer);
+
+        buffer.flip();
+        assertEquals("[1,2,3]", Charset.forName("UTF-8").decode(buffer).toString());
+        object.release();
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void testToJsonBufferTooSmall() {
+        V8Object object = v8.executeObjectScript("x = {a: 'a long string value'}; x;");
+        try {
+            object.toJson(ByteBuffer.allocateDirect(4));
+        } finally {
+            object.release();
+        }
+    }
+
+    @Test
+    public void testToJsonOutputStream() throws IOException {
+        V8Object object = v8.executeObjectScript("x = {a: new Array(10000).join('x')}; x;");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        object.toJson(stream);
+
+        assertEquals(10008, stream.size());
+        object.release();
+    }
+
+    @Test
+    public void testToJsonIgnoresReplacedStringify() throws IOException {
+        V8Object object = v8.executeObjectScript("JSON.stringify = function() { return 'replaced'; }; x = {a: 1}; x;");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        object.toJson(stream);
+
+        assertEquals("{\"a\":1}", new String(stream.toByteArray(), Charset.forName("UTF-8")));
+        object.release();
+    }
+
+    @Test
+    public void testToJsonLargeObjectRunsToJsonOnce() throws IOException {
+        V8Object object = v8.executeObjectScript("var calls = 0; x = {toJSON: function() { calls++; return new Array(100000).join('x'); }}; x;");
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        object.toJson(stream);
+        object.toJson(stream);
+
+        assertEquals(2, v8.executeIntScript("calls"));
+        assertEquals(2 * 100001, stream.size());
+        object.release();
+    }
+
+    @Test(expected = V8ScriptTerminatedException.class)
+    public void testToJsonExecutionTimeout() throws IOException {
+        V8Object object = v8.executeObjectScript("x = {toJSON: function() { while (true) {} }}; x;");
+        v8.setExecutionTimeout(100);
+        try {
+            object.toJson(new ByteArrayOutputStream());
+        } finally {
+            object.release();
+        }
+    }
+
+    @Test
+    public void testSerializeIntoOtherRuntime() {
+        V8Object object = v8.executeObjectScript("x = {a: 1, b: 'caf\u00e9', c: [true, 1.5, null, undefined], d: {e: {}}}; x;");
+        V8 other = V8.createV8Runtime();
+
+        ByteBuffer serialized = object.serialize();
+        V8Object result = other.deserialize(serialized);
+        other.add("y", result);
+
+        assertEquals(v8.executeStringScript("JSON.stringify(x)"), other.executeStringScript("JSON.stringify(y)"));
+        assertTrue(other.executeBooleanScript("y.c[2] === null && y.c[3] === undefined && y.c.length === 4"));
+        object.release();
+        result.release();
+        other.release();
+    }
+
+    @Test
+    public void testSerializeArray() {
+        V8Array array = v8.executeArrayScript("[1, 'two', [3]]");
+
+        V8Object result = v8.deserialize(array.serialize());
+
+        assertTrue(result instanceof V8Array);
+        assertEquals(3, ((V8Array) result).length());
+        assertEquals("two", ((V8Array) result).getString(1));
+        array.release();
+        result.release();
+    }
+
+    @Test
+    public void testSerializeKeepsSharedAndCyclicReferences() {
+        V8Object object = v8.executeObjectScript("var shared = {}; x = {a: shared, b: shared}; x.self = x; x;");
+
+        V8Object result = v8.deserialize(object.serialize());
+        v8.add("y", result);
+
+        assertTrue(v8.executeBooleanScript("y.a === y.b && y.self === y && y !== x"));
+        object.release();
+        result.release();
+    }
+
+    @Test
+    public void testSerializeDatesAndTypedArrays() {
+        V8Object object = v8.executeObjectScript("var buffer = new ArrayBuffer(16);\n"
+                + "var floats = new Float64Array(buffer, 8, 1); floats[0] = 2.5;\n"
+                + "x = {date: new Date(1000), buffer: buffer, floats: floats, bytes: new Uint8Array([1, 2, 3])}; x;");
+
+        V8Object result = v8.deserialize(object.serialize());
+        v8.add("y", result);
+
+        assertEquals(1000, v8.executeIntScript("y.date.getTime()"));
+        assertEquals(2.5, v8.executeDoubleScript("y.floats[0]"), 0);
+        assertTrue(v8.executeBooleanScript("y.floats.buffer === y.buffer && y.floats.byteOffset === 8"));
+        assertEquals("1,2,3", v8.executeStringScript("Array.prototype.join.call(y.bytes)"));
+        object.release();
+        result.release();
+    }
+
+    @Test
+    public void testSerializeFunctionFails() {
+        V8Object object = v8.executeObjectScript("x = {f: function() {}}; x;");
+        try {
+            object.serialize();
+            fail("Expected exception");
+        } catch (V8RuntimeException e) {
+            // expected
+        } finally {
+            object.release();
+        }
+    }
+
+    @Test
+    public void testSerializeIntoBuffer() {
+        V8Object object = v8.executeObjectScript("x = {a: 'value'}; x;");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100);
+
+        int length = object.serialize(buffer);
+
+        buffer.flip();
+        assertEquals(length, buffer.remaining());
+        V8Object result = v8.deserialize(buffer);
+        assertEquals("value", result.getString("a"));
+        object.release();
+        result.release();
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void testSerializeBufferTooSmall() {
+        V8Object object = v8.executeObjectScript("x = {a: 'a long string value'}; x;");
+        try {
+            object.serialize(ByteBuffer.allocateDirect(4));
+        } finally {
+            object.release();
+        }
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testSerializeDeeplyNestedObjectFails() {
+        V8Object object = v8.executeObjectScript("var x = {}; for (var i = 0, o = x; i < 100000; i++) { o = o.next = {}; } x;");
+        try {
+            object.serialize();
+        } finally {
+            object.release();
+        }
+    }
+
+    @Test
+    public void testSerializeNestedObject() {
+        V8Object object = v8.executeObjectScript("var x = {}; for (var i = 0, o = x; i < 500; i++) { o = o.next = {}; } x;");
+
+        V8Object result = v8.deserialize(object.serialize());
+        v8.add("y", result);
+
+        assertEquals(500, v8.executeIntScript("var n = 0; for (var o = y.next; o; o = o.next) { n++; } n;"));
+        object.release();
+        result.release();
+    }
+
+    @Test(expected = V8ScriptExecutionException.class)
+    public void testSerializeThrowingGetterFails() {
+        V8Object object = v8.executeObjectScript("x = {}; Object.defineProperty(x, 'a', {enumerable: true, get: function() { throw 'fail'; }}); x;");
+        try {
+            object.serialize();
+        } finally {
+            object.release();
+        }
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testSerializeRegExpFails() {
+        V8Object object = v8.executeObjectScript("x = {pattern: /a+/g}; x;");
+        try {
+            object.serialize();
+        } finally {
+            object.release();
+        }
+    }
+
+    @Test
+    public void testSerializeLargeObjectRunsGettersOnce() {
+        V8Object object = v8.executeObjectScript("var calls = 0; x = {};\n"
+                + "Object.defineProperty(x, 'a', {enumerable: true, get: function() { calls++; return new Array(10000).join('x'); }}); x;");
+
+        V8Object result = v8.deserialize(object.serialize());
+
+        assertEquals(1, v8.executeIntScript("calls"));
+        assertEquals(9999, result.getString("a").length());
+        object.release();
+        result.release();
+    }
+
+    @Test
+    public void testSerializeAfterBufferTooSmall() {
+        V8Object object = v8.executeObjectScript("x = {a: 'a long string value'}; x;");
+        try {
+            object.serialize(ByteBuffer.allocateDirect(4));
+            fail("Expected exception");
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+
+        V8Object result = v8.deserialize(object.serialize());
+
+        assertEquals("a long string value", result.getString("a"));
+        object.release();
+        result.release();
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testDeserializeViewBeyondBufferFails() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(32).order(ByteOrder.nativeOrder());
+        buffer.put((byte) 20).put((byte) 9).putInt(0).putInt(1000);
+        buffer.put((byte) 19).putInt(8).putLong(0);
+        buffer.flip();
+
+        v8.deserialize(buffer);
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testDeserializeViewLengthOverflowFails() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(32).order(ByteOrder.nativeOrder());
+        buffer.put((byte) 20).put((byte) 9).putInt(8).putInt(0x20000000);
+        buffer.put((byte) 19).putInt(16).putLong(0).putLong(0);
+        buffer.flip();
+
+        v8.deserialize(buffer);
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testDeserializeMisalignedViewFails() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(32).order(ByteOrder.nativeOrder());
+        buffer.put((byte) 20).put((byte) 9).putInt(4).putInt(1);
+        buffer.put((byte) 19).putInt(16).putLong(0).putLong(0);
+        buffer.flip();
+
+        v8.deserialize(buffer);
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testDeserializeArrayLengthBeyondBufferFails() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(8).order(ByteOrder.nativeOrder());
+        buffer.put((byte) 5).putInt(0x7fffffff);
+        buffer.flip();
+
+        v8.deserialize(buffer);
+    }
+
+    @Test
+    public void testSupplementaryCharactersRoundTrip() {
+        V8Object object = new V8Object(v8);
+        object.add("\u00e9t\u00e9", "\ud83d\ude00 \u0000 caf\u00e9");
+
+        assertEquals("\ud83d\ude00 \u0000 caf\u00e9", object.getString("\u00e9t\u00e9"));
+        assertEquals("\u00e9t\u00e9", object.getKeys()[0]);
+        object.release();
+    }
+
+    @Test
+    public void testLongStringRoundTrip() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append("abc\u00e9\u03b1");
+        }
+        V8Object object = new V8Object(v8);
+        object.add("key", builder.toString());
+
+        assertEquals(builder.toString(), object.getString("key"));
+        object.release();
+    }
+
+    @Test
+    public void testManyDistinctKeys() {
+        V8Object object = new V8Object(v8);
+        for (int i = 0; i < 1000; i++) {
+            object.add("key" + i, i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, object.getInteger("key" + i));
+        }
+        assertEquals(1000, object.getKeys().length);
+        object.release();
+    }
+
+    @Test
+    public void testLongKey() {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            key.append('k');
+        }
+        V8Object object = new V8Object(v8);
+        object.add(key.toString(), 7);
+
+        assertTrue(object.contains(key.toString()));
+        assertEquals(7, object.getInteger(key.toString()));
+        assertFalse(object.contains(key.substring(1)));
+        object.release();
+    }
+
+    @Test
+    public void testReleasedHandleIsRecycledWithNewGeneration() {
+        V8Object first = new V8Object(v8);
+        int handle = first.getHandle();
+        first.release();
+
+        V8Object second = new V8Object(v8);
+
+        assertEquals(HandleAllocator.getIndex(handle), HandleAllocator.getIndex(second.getHandle()));
+        assertNotEquals(handle, second.getHandle());
+        second.release();
+    }
+
+    @Test
+    public void testRecycledHandleDoesNotAliasOldObject() {
+        V8Object first = new V8Object(v8);
+        first.add("foo", 1);
+        first.release();
+
+        V8Object second = new V8Object(v8);
+
+        assertFalse(second.contains("foo"));
+        second.release();
+    }
+
+    @Test
+    public void testObjectIsNotWeakByDefault() {
+        V8Object object = new V8Object(v8);
+
+        assertFalse(object.isWeak());
+        assertFalse(object.isCollected());
+        object.release();
+    }
+
+    @Test
+    public void testSetWeak() {
+        V8Object object = new V8Object(v8).setWeak();
+
+        assertTrue(object.isWeak());
+        object.release();
+    }
+
+    @Test
+    public void testClearWeak() {
+        V8Object object = new V8Object(v8).setWeak();
+
+        object.clearWeak();
+
+        assertFalse(object.isWeak());
+        object.release();
+    }
+
+    @Test
+    public void testWeakObjectReachableFromJSIsNotCollected() {
+        V8Object object = v8.executeObjectScript("var keep = {foo : 'bar'}; keep;").setWeak();
+
+        forceGC();
+
+        assertFalse(object.isCollected());
+        assertEquals("bar", object.getString("foo"));
+        object.release();
+    }
+
+    @Test
+    public void testUnreachableWeakObjectIsCollected() {
+        V8Object object = v8.executeObjectScript("({foo : 'bar'})").setWeak();
+
+        forceGC();
+
+        assertTrue(object.isCollected());
+        object.release();
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testAccessCollectedObject() {
+        V8Object object = v8.executeObjectScript("({foo : 'bar'})").setWeak();
+        forceGC();
+
+        try {
+            object.getString("foo");
+        } finally {
+            object.release();
+        }
+    }
+
+    private void forceGC() {
+        v8.executeVoidScript("for (var i = 0; i < 64; i++) { new Array(1 << 20).join('x'); }");
+    }
+
+    @Test
+    public void testIdentityCacheDisabledByDefault() {
+        V8Object parent = v8.executeObjectScript("({child : {}})");
+
+        V8Object child1 = parent.getObject("child");
+        V8Object child2 = parent.getObject("child");
+
+        assertNotSame(child1, child2);
+        parent.release();
+        child1.release();
+        child2.release();
+    }
+
+    @Test
+    public void testIdentityCacheReturnsSameWrapper() {
+        v8.setIdentityCache(true);
+        V8Object parent = v8.executeObjectScript("var child = {}; ({a : child, b : child})");
+
+        V8Object child1 = parent.getObject("a");
+        V8Object child2 = parent.getObject("b");
+
+        assertSame(child1, child2);
+        parent.release();
+        child1.release();
+        child2.release();
+    }
+
+    @Test
+    public void testIdentityCacheDistinctObjects() {
+        v8.setIdentityCache(true);
+        V8Object parent = v8.executeObjectScript("({a : {}, b : {}})");
+
+        V8Object child1 = parent.getObject("a");
+        V8Object child2 = parent.getObject("b");
+
+        assertNotSame(child1, child2);
+        assertFalse(child1.equals(child2));
+        parent.release();
+        child1.release();
+        child2.release();
+    }
+
+    @Test
+    public void testIdentityCacheWrapperReleasedWithLastReference() {
+        v8.setIdentityCache(true);
+        V8Object parent = v8.executeObjectScript("({a : {}})");
+        V8Object child1 = parent.getObject("a");
+        V8Object child2 = parent.getObject("a");
+
+        child1.release();
+        assertFalse(child2.isReleased());
+        child2.release();
+
+        assertTrue(child2.isReleased());
+        parent.release();
+    }
+
+    @Test
+    public void testIdentityCacheAfterRelease() {
+        v8.setIdentityCache(true);
+        V8Object parent = v8.executeObjectScript("({a : {foo : 'bar'}})");
+        V8Object child1 = parent.getObject("a");
+        child1.release();
+
+        V8Object child2 = parent.getObject("a");
+
+        assertNotSame(child1, child2);
+        assertEquals("bar", child2.getString("foo"));
+        parent.release();
+        child2.release();
+    }
+
+    @Test
+    public void testIdentityCacheNoLeaks() {
+        v8.setIdentityCache(true);
+        V8Object parent = v8.executeObjectScript("({a : {}})");
+        for (int i = 0; i < 100; i++) {
+            parent.getObject("a");
+        }
+        V8Object child = parent.getObject("a");
+        for (int i = 0; i < 101; i++) {
+            child.release();
+        }
+        parent.release();
+
+        assertEquals(0, v8.objectReferences);
+    }
+
+    @Test
+    public void testHashCodeIsCached() {
+        V8Object object = new V8Object(v8);
+
+        assertEquals(object.hashCode(), object.hashCode());
+        object.release();
+    }
+
+    @Test
+    public void testEqualsSameWrapper() {
+        V8Object object = new V8Object(v8);
+
+        assertTrue(object.equals(object));
+        object.release();
+    }
+
+    @Test
+    public void testAddReleasedObjectFails() {
+        V8Object parent = new V8Object(v8);
+        V8Object child = new V8Object(v8);
+        child.release();
+
+        try {
+            parent.add("child", child);
+            fail("Expected exception");
+        } catch (V8RuntimeException e) {
+            assertEquals(UNDEFINED, parent.getType("child"));
+        } finally {
+            parent.release();
+        }
+    }
+
+    @Test
+    public void testRecycledHandleDoesNotResolveToNewObject() {
+        V8Object parent = new V8Object(v8);
+        V8Object stale = new V8Object(v8);
+        stale.release();
+        V8Object recycled = new V8Object(v8).add("name", "recycled");
+
+        try {
+            parent.add("child", stale);
+            fail("Expected exception");
+        } catch (V8RuntimeException e) {
+            assertEquals(UNDEFINED, parent.getType("child"));
+        } finally {
+            parent.release();
+            recycled.release();
+        }
+    }
+
+    @Test
+    public void testPushReleasedObjectFails() {
+        V8Array array = new V8Array(v8);
+        V8Object child = new V8Object(v8);
+        child.release();
+
+        try {
+            array.push(child);
+            fail("Expected exception");
+        } catch (V8RuntimeException e) {
+            assertEquals(0, array.length());
+        } finally {
+            array.release();
+        }
+    }
+
+    @Test
+    public void testReturnReleasedObjectFromCallbackFails() {
+        v8.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                V8Object result = new V8Object(v8);
+                result.release();
+                return result;
+            }
+        }, "getReleased");
+
+        try {
+            v8.executeVoidScript("getReleased();");
+            fail("Expected exception");
+        } catch (V8ScriptExecutionException e) {
+            assertEquals(3, v8.executeIntScript("1 + 2"));
+        }
+    }
+
 }
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class V8SharedBufferTest {
+
+    private V8 v8;
+
+    @Before
+    public void seutp() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            v8.release();
+            if (V8.getActiveRuntimes() != 0) {
+                throw new IllegalStateException("V8Runtimes not properly released.");
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSharedBetweenRuntimes() {
+        V8SharedBuffer shared = new V8SharedBuffer(64);
+        V8 other = V8.createV8Runtime();
+        V8Object buffer1 = shared.attach(v8);
+        V8Object buffer2 = shared.attach(other);
+        v8.add("state", buffer1);
+        other.add("state", buffer2);
+
+        v8.executeVoidScript("new Float64Array(state)[3] = 1.5;");
+
+        assertEquals(1.5, other.executeDoubleScript("new Float64Array(state)[3]"), 0);
+        assertEquals(64, other.executeIntScript("state.byteLength"));
+        buffer1.release();
+        buffer2.release();
+        other.release();
+    }
+
+    @Test
+    public void testVisibleFromJava() {
+        V8SharedBuffer shared = new V8SharedBuffer(16);
+        V8Object buffer = shared.attach(v8);
+        v8.add("state", buffer);
+
+        v8.executeVoidScript("new Int32Array(state)[2] = 42;");
+        shared.getBuffer().putInt(0, 7);
+
+        assertEquals(42, shared.getBuffer().getInt(8));
+        assertEquals(7, v8.executeIntScript("new Int32Array(state)[0]"));
+        buffer.release();
+    }
+
+    @Test
+    public void testWrapsDirectBuffer() {
+        ByteBuffer memory = ByteBuffer.allocateDirect(8);
+        V8SharedBuffer shared = new V8SharedBuffer(memory);
+        V8Object buffer = shared.attach(v8);
+        v8.add("state", buffer);
+
+        v8.executeVoidScript("new Uint8Array(state)[1] = 255;");
+
+        assertEquals((byte) 255, memory.get(1));
+        buffer.release();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHeapBufferNotSupported() {
+        new V8SharedBuffer(ByteBuffer.allocate(8));
+    }
+
+    @Test
+    public void testAtomics() {
+        V8SharedBuffer shared = new V8SharedBuffer(16);
+        V8Object buffer = shared.attach(v8);
+        v8.add("state", buffer);
+        v8.executeVoidScript("var ints = new Int32Array(state, 4);");
+
+        assertEquals(0, v8.executeIntScript("Atomics.add(ints, 0, 5)"));
+        assertEquals(5, v8.executeIntScript("Atomics.sub(ints, 0, 2)"));
+        assertEquals(3, v8.executeIntScript("Atomics.compareExchange(ints, 0, 3, 10)"));
+        assertEquals(10, v8.executeIntScript("Atomics.exchange(ints, 0, 6)"));
+        assertEquals(6, v8.executeIntScript("Atomics.or(ints, 0, 1)"));
+        assertEquals(7, v8.executeIntScript("Atomics.load(ints, 0)"));
+        assertEquals(9, v8.executeIntScript("Atomics.store(ints, 1, 9)"));
+        assertEquals(7, shared.load(1));
+        assertEquals(9, shared.load(2));
+        buffer.release();
+    }
+
+    @Test(expected = V8ScriptExecutionException.class)
+    public void testAtomicsRequireSharedBuffer() {
+        V8Object buffer = new V8SharedBuffer(16).attach(v8);
+        buffer.release();
+
+        v8.executeVoidScript("Atomics.add(new Int32Array(4), 0, 1);");
+    }
+
+    @Test(expected = V8ScriptExecutionException.class)
+    public void testAtomicsIndexOutOfRange() {
+        V8Object buffer = new V8SharedBuffer(16).attach(v8);
+        v8.add("state", buffer);
+        buffer.release();
+
+        v8.executeVoidScript("Atomics.add(new Int32Array(state), 4, 1);");
+    }
+
+    @Test
+    public void testAtomicsAcrossThreads() throws Exception {
+        final V8SharedBuffer shared = new V8SharedBuffer(16);
+        final V8EventLoop loop = new V8EventLoop("worker", new V8RuntimeConfig());
+        loop.start();
+        V8Future<Integer> result = loop.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                V8 runtime = loop.getRuntime();
+                V8Object buffer = shared.attach(runtime);
+                runtime.add("state", buffer);
+                buffer.release();
+                return runtime.executeIntScript("var ints = new Int32Array(state);\n"
+                        + "for (var i = 0; i < 1000; i++) { Atomics.add(ints, 0, 1); }\n"
+                        + "Atomics.wait(ints, 1, 0, 5000) === 'ok' ? 1 : 0;");
+            }
+        });
+        V8Object buffer = shared.attach(v8);
+        v8.add("state", buffer);
+        buffer.release();
+
+        v8.executeVoidScript("var ints = new Int32Array(state); for (var i = 0; i < 1000; i++) { Atomics.add(ints, 0, 1); }");
+        long end = System.currentTimeMillis() + 5000;
+        while ((v8.executeIntScript("Atomics.notify(ints, 1, 1)") == 0) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(1, (int) result.get(5, TimeUnit.SECONDS));
+        assertEquals(2000, shared.load(0));
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWaitNotEqual() throws Exception {
+        V8SharedBuffer shared = new V8SharedBuffer(8);
+        shared.store(0, 1);
+
+        assertEquals("not-equal", shared.waitFor(0, 0, -1));
+    }
+
+    @Test
+    public void testWaitTimesOut() throws Exception {
+        V8SharedBuffer shared = new V8SharedBuffer(8);
+
+        assertEquals("timed-out", shared.waitFor(0, 0, 10));
+    }
+
+    @Test(expected = V8ScriptTerminatedException.class)
+    public void testTimeoutTerminatesAtomicsWait() {
+        V8SharedBuffer shared = new V8SharedBuffer(8);
+        V8Object buffer = shared.attach(v8);
+        v8.add("state", buffer);
+        buffer.release();
+        v8.setExecutionTimeout(100);
+
+        v8.executeVoidScript("Atomics.wait(new Int32Array(state), 0, 0);");
+    }
+
+    @Test
+    public void testRuntimeUsableAfterTerminatedWait() {
+        V8SharedBuffer shared = new V8SharedBuffer(8);
+        V8Object buffer = shared.attach(v8);
+        v8.add("state", buffer);
+        buffer.release();
+        v8.setExecutionTimeout(100);
+        try {
+            v8.executeVoidScript("Atomics.wait(new Int32Array(state), 0, 0);");
+        } catch (V8ScriptTerminatedException e) {
+            // expected
+        }
+
+        assertEquals(2, v8.executeIntScript("1 + 1"));
+    }
+
+    @Test
+    public void testAttachAfterReset() {
+        V8SharedBuffer shared = new V8SharedBuffer(8);
+        shared.attach(v8).release();
+        v8.reset();
+
+        V8Object buffer = shared.attach(v8);
+        v8.add("state", buffer);
+
+        assertEquals(3, v8.executeIntScript("Atomics.add(new Int32Array(state), 0, 3); Atomics.load(new Int32Array(state), 0)"));
+        buffer.release();
+    }
+
+}
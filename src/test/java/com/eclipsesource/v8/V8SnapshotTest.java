@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class V8SnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRuntimeRunsSnapshotScripts() {
+        V8Snapshot snapshot = new V8Snapshot().addScript("var foo = 7;", "foo.js").addScript("var bar = foo * 2;", "bar.js");
+
+        V8 runtime = V8.createV8Runtime(new V8RuntimeConfig().setSnapshot(snapshot));
+
+        assertEquals(14, runtime.executeIntScript("bar"));
+        runtime.release();
+    }
+
+    @Test
+    public void testSnapshotReusedForSeveralRuntimes() {
+        V8Snapshot snapshot = new V8Snapshot().addScript("function twice(x) { return x * 2; }", "twice.js");
+        V8RuntimeConfig config = new V8RuntimeConfig().setSnapshot(snapshot);
+
+        V8 runtime1 = V8.createV8Runtime(config);
+        V8 runtime2 = V8.createV8Runtime(config);
+
+        assertEquals(14, runtime1.executeIntScript("twice(7)"));
+        assertEquals(6, runtime2.executeIntScript("twice(3)"));
+        runtime1.release();
+        runtime2.release();
+    }
+
+    @Test
+    public void testSnapshotSharedByConcurrentRuntimes() throws InterruptedException {
+        V8Snapshot snapshot = new V8Snapshot().addScript("function twice(x) { return x * 2; }", "twice.js");
+        final V8RuntimeConfig config = new V8RuntimeConfig().setSnapshot(snapshot);
+        final int[] results = new int[4];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    V8 runtime = V8.createV8Runtime(config);
+                    try {
+                        results[index] = runtime.executeIntScript("twice(" + index + ")");
+                    } finally {
+                        runtime.release();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            assertEquals(i * 2, results[i]);
+        }
+        assertTrue(snapshot.isCompiled());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = folder.newFile("bootstrap.snapshot");
+        V8Snapshot snapshot = new V8Snapshot().addScript("var greeting = 'héllo';", "greeting.js");
+        V8.createV8Runtime(new V8RuntimeConfig().setSnapshot(snapshot)).release();
+        snapshot.save(file);
+
+        V8Snapshot loaded = V8Snapshot.load(file);
+        V8 runtime = V8.createV8Runtime(new V8RuntimeConfig().setSnapshot(loaded));
+
+        assertEquals(1, loaded.getScriptCount());
+        assertEquals(snapshot.isCompiled(), loaded.isCompiled());
+        assertEquals("héllo", runtime.executeStringScript("greeting"));
+        runtime.release();
+    }
+
+    @Test
+    public void testLoadWithoutCompileData() throws IOException {
+        File file = folder.newFile("bootstrap.snapshot");
+        new V8Snapshot().addScript("var foo = 7;", "foo.js").save(file);
+
+        V8Snapshot loaded = V8Snapshot.load(file);
+        V8 runtime = V8.createV8Runtime(new V8RuntimeConfig().setSnapshot(loaded));
+
+        assertFalse(V8Snapshot.load(file).isCompiled());
+        assertEquals(7, runtime.executeIntScript("foo"));
+        runtime.release();
+    }
+
+    @Test
+    public void testEmptySnapshotIsCompiled() {
+        assertTrue(new V8Snapshot().isCompiled());
+    }
+
+    @Test
+    public void testFailingScriptReleasesRuntime() {
+        int activeRuntimes = V8.getActiveRuntimes();
+        V8Snapshot snapshot = new V8Snapshot().addScript("throw 'failed';", "failing.js");
+
+        try {
+            V8.createV8Runtime(new V8RuntimeConfig().setSnapshot(snapshot));
+        } catch (V8ScriptExecutionException e) {
+            assertEquals(activeRuntimes, V8.getActiveRuntimes());
+            return;
+        }
+        fail("Exception not thrown.");
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadInvalidFile() throws IOException {
+        File file = folder.newFile("invalid.snapshot");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+        }
+
+        V8Snapshot.load(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadTruncatedFile() throws IOException {
+        File file = folder.newFile("truncated.snapshot");
+        File complete = folder.newFile("complete.snapshot");
+        new V8Snapshot().addScript("var foo = 7;", "foo.js").save(complete);
+        byte[] bytes = Files.readAllBytes(complete.toPath());
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(bytes, 0, bytes.length - 4);
+        }
+
+        V8Snapshot.load(file);
+    }
+
+}
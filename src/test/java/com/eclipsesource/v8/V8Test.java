@@ -15,14 +15,24 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
@@ -1230,6 +1240,133 @@ public class V8Test {
         v8.executeVoidScript(script, "example.js", 0);
     }
 
+    @Test
+    public void testDecodeObjectFromHeapBuffer() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("foo", "bar");
+        ByteBuffer encoded = V8Encoder.encode(map);
+        ByteBuffer heapBuffer = ByteBuffer.allocate(encoded.remaining());
+        heapBuffer.put(encoded).flip();
+
+        V8Object result = v8.decodeObject(heapBuffer);
+
+        assertEquals("bar", result.getString("foo"));
+        result.release();
+    }
+
+    @Test
+    public void testDecodeArray() {
+        V8Array result = v8.decodeArray(V8Encoder.encode(Arrays.asList(1, 2, 3)));
+
+        assertEquals(3, result.length());
+        assertEquals(3, result.getInteger(2));
+        result.release();
+    }
+
+    @Test(expected = V8ResultUndefined.class)
+    public void testDecodeStringAsObject() {
+        v8.decodeObject(V8Encoder.encode("foo"));
+    }
+
+    @Test(expected = V8ResultUndefined.class)
+    public void testDecodeArrayAsObject() {
+        v8.decodeObject(V8Encoder.encode(Arrays.asList(1, 2, 3)));
+    }
+
+    @Test
+    public void testDecodeProtoKeyAsOwnProperty() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("__proto__", Collections.singletonMap("polluted", true));
+
+        V8Object result = v8.decodeObject(V8Encoder.encode(map));
+        v8.add("x", result);
+
+        assertTrue(v8.executeBooleanScript("Object.getPrototypeOf(x) === Object.prototype"));
+        assertTrue(v8.executeBooleanScript("x.hasOwnProperty('__proto__')"));
+        assertTrue(v8.executeBooleanScript("x.polluted === undefined"));
+        result.release();
+    }
+
+    @Test
+    public void testDeserializeProtoKeyAsOwnProperty() {
+        V8Object object = v8.executeObjectScript("x = JSON.parse('{\"__proto__\": {\"polluted\": true}}'); x;");
+
+        V8Object result = v8.deserialize(object.serialize());
+        v8.add("y", result);
+
+        assertTrue(v8.executeBooleanScript("Object.getPrototypeOf(y) === Object.prototype"));
+        assertTrue(v8.executeBooleanScript("y.polluted === undefined"));
+        object.release();
+        result.release();
+    }
+
+    @Test(expected = V8RuntimeException.class)
+    public void testDecodeTruncatedBuffer() {
+        ByteBuffer encoded = V8Encoder.encode(Arrays.asList(1, 2, 3));
+        encoded.limit(encoded.limit() - 1);
+
+        v8.decodeArray(encoded);
+    }
+
+    @Test
+    public void testParseJsonObject() {
+        ByteBuffer json = ByteBuffer.wrap("{\"a\": 1, \"b\": [true, \"caf\u00e9\"]}".getBytes(Charset.forName("UTF-8")));
+
+        V8Object result = v8.parseJson(json);
+
+        assertEquals(1, result.getInteger("a"));
+        V8Array array = result.getArray("b");
+        assertEquals("caf\u00e9", array.getString(1));
+        array.release();
+        result.release();
+    }
+
+    @Test
+    public void testParseJsonArray() {
+        ByteBuffer json = ByteBuffer.allocateDirect(16);
+        json.put("[1, 2, 3]".getBytes(Charset.forName("UTF-8"))).flip();
+
+        V8Object result = v8.parseJson(json);
+
+        assertTrue(result instanceof V8Array);
+        assertEquals(3, ((V8Array) result).length());
+        result.release();
+    }
+
+    @Test(expected = V8ResultUndefined.class)
+    public void testParseJsonPrimitive() {
+        v8.parseJson(ByteBuffer.wrap("42".getBytes(Charset.forName("UTF-8"))));
+    }
+
+    @Test
+    public void testParseLargeJsonFromHeapBuffers() {
+        StringBuilder builder = new StringBuilder("{\"a\": \"");
+        for (int i = 0; i < 100000; i++) {
+            builder.append('x');
+        }
+        String large = builder.append("\"}").toString();
+
+        V8Object first = v8.parseJson(ByteBuffer.wrap(large.getBytes(Charset.forName("UTF-8"))));
+        V8Object second = v8.parseJson(ByteBuffer.wrap("{\"b\": 2}".getBytes(Charset.forName("UTF-8"))));
+
+        assertEquals(100000, first.getString("a").length());
+        assertEquals(2, second.getInteger("b"));
+        first.release();
+        second.release();
+    }
+
+    @Test(expected = V8ScriptException.class)
+    public void testParseInvalidJson() {
+        v8.parseJson(ByteBuffer.wrap("{a:".getBytes(Charset.forName("UTF-8"))));
+    }
+
+    @Test
+    public void testExecuteStringScriptWithSupplementaryCharacters() {
+        String result = v8.executeStringScript("'\\ud83d\\ude00'");
+
+        assertEquals("\ud83d\ude00", result);
+    }
+
     private boolean debugEnabled(final int port) {
         Socket socket = new Socket();
         InetSocketAddress endPoint = new InetSocketAddress("localhost", port);
@@ -1248,4 +1385,654 @@ public class V8Test {
         }
     }
 
-}
\ No newline at end of file
+    /*** Auto Release ***/
+    @Test
+    public void testAutoReleaseDisabledByDefault() {
+        assertFalse(v8.isAutoRelease());
+    }
+
+    @Test
+    public void testAutoReleaseUnreachableObjects() throws InterruptedException {
+        v8.setAutoRelease(true);
+        for (int i = 0; i < 100; i++) {
+            new V8Object(v8);
+        }
+
+        int released = 0;
+        for (int i = 0; (i < 50) && (released < 100); i++) {
+            System.gc();
+            Thread.sleep(10);
+            released += v8.releaseCollectedValues();
+        }
+
+        assertEquals(100, released);
+        assertEquals(100, v8.getAutoReleasedCount());
+        assertEquals(0, v8.objectReferences);
+    }
+
+    @Test
+    public void testAutoReleaseWithIdentityCache() throws InterruptedException {
+        v8.setAutoRelease(true);
+        v8.setIdentityCache(true);
+        V8Object parent = v8.executeObjectScript("({a : {foo : 'bar'}})");
+        parent.getObject("a");
+
+        int released = 0;
+        for (int i = 0; (i < 50) && (released < 1); i++) {
+            System.gc();
+            Thread.sleep(10);
+            released += v8.releaseCollectedValues();
+        }
+
+        assertEquals(1, released);
+        assertEquals(1, v8.objectReferences);
+        V8Object child = parent.getObject("a");
+        assertEquals("bar", child.getString("foo"));
+        child.release();
+        parent.release();
+        assertEquals(0, v8.objectReferences);
+    }
+
+    @Test
+    public void testAutoReleaseOnScriptExecution() throws InterruptedException {
+        v8.setAutoRelease(true);
+        for (int i = 0; i < 100; i++) {
+            v8.executeObjectScript("({})");
+        }
+
+        for (int i = 0; (i < 50) && (v8.getAutoReleasedCount() < 100); i++) {
+            System.gc();
+            Thread.sleep(10);
+            v8.executeVoidScript("");
+        }
+
+        assertEquals(100, v8.getAutoReleasedCount());
+    }
+
+    @Test
+    public void testAutoReleaseIgnoresReleasedObjects() throws InterruptedException {
+        v8.setAutoRelease(true);
+        for (int i = 0; i < 100; i++) {
+            new V8Object(v8).release();
+        }
+
+        System.gc();
+        Thread.sleep(10);
+
+        assertEquals(0, v8.releaseCollectedValues());
+        assertEquals(0, v8.getAutoReleasedCount());
+    }
+
+    @Test
+    public void testAutoReleaseKeepsReachableObjects() throws InterruptedException {
+        v8.setAutoRelease(true);
+        V8Object object = v8.executeObjectScript("({foo : 'bar'})");
+
+        System.gc();
+        Thread.sleep(10);
+        v8.releaseCollectedValues();
+
+        assertEquals("bar", object.getString("foo"));
+        object.release();
+    }
+
+    /*** Allocation Sampling ***/
+    @Test
+    public void testAllocationSamplingDisabledByDefault() {
+        new V8Object(v8).release();
+
+        assertEquals(0, v8.getAllocationSampling());
+        assertTrue(v8.getAllocationSites().isEmpty());
+    }
+
+    @Test
+    public void testAllocationSitesOfLiveObjects() {
+        v8.setAllocationSampling(1);
+        V8Object object = new V8Object(v8);
+        V8Array array = v8.executeArrayScript("[]");
+
+        List<V8AllocationSite> sites = v8.getAllocationSites();
+
+        assertEquals(2, sites.size());
+        assertEquals(getClass().getName(), sites.get(0).getStackTrace()[0].getClassName());
+        object.release();
+        array.release();
+    }
+
+    @Test
+    public void testAllocationSitesAreGrouped() {
+        v8.setAllocationSampling(1);
+        V8Object[] objects = new V8Object[10];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new V8Object(v8);
+        }
+
+        List<V8AllocationSite> sites = v8.getAllocationSites();
+
+        assertEquals(1, sites.size());
+        assertEquals(10, sites.get(0).getLiveCount());
+        assertEquals("V8Object", sites.get(0).getType());
+        for (V8Object object : objects) {
+            object.release();
+        }
+    }
+
+    @Test
+    public void testReleasedObjectsAreNotReported() {
+        v8.setAllocationSampling(1);
+        new V8Object(v8).release();
+
+        assertTrue(v8.getAllocationSites().isEmpty());
+    }
+
+    @Test
+    public void testAllocationSamplingInterval() {
+        v8.setAllocationSampling(10);
+        V8Object[] objects = new V8Object[100];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new V8Object(v8);
+        }
+
+        assertEquals(10, v8.getAllocationSites().get(0).getLiveCount());
+        for (V8Object object : objects) {
+            object.release();
+        }
+    }
+
+    @Test
+    public void testLeakReportContainsAllocationSite() {
+        v8.setAllocationSampling(1);
+        new V8Object(v8);
+
+        try {
+            v8.release(true);
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("1 Object(s) still exist in runtime"));
+            assertTrue(e.getMessage().contains("testLeakReportContainsAllocationSite"));
+            return;
+        } finally {
+            v8 = V8.createV8Runtime();
+        }
+        fail("IllegalStateException not thrown.");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeAllocationSampling() {
+        v8.setAllocationSampling(-1);
+    }
+
+    /*** Native Memory ***/
+    @Test
+    public void testNativeMemoryUsageCountsHandles() {
+        long before = v8.getNativeMemoryUsage().getHandleCount();
+        V8Object object = new V8Object(v8);
+
+        assertEquals(before + 1, v8.getNativeMemoryUsage().getHandleCount());
+        object.release();
+        assertEquals(before, v8.getNativeMemoryUsage().getHandleCount());
+    }
+
+    @Test
+    public void testNativeMemoryUsageCountsCallbacks() {
+        v8.registerJavaMethod(mock(JavaVoidCallback.class), "foo");
+
+        assertEquals(1, v8.getNativeMemoryUsage().getCallbackCount());
+        assertTrue(v8.getNativeMemoryUsage().getCallbackBytes() > 0);
+    }
+
+    @Test
+    public void testAdjustExternalMemory() {
+        assertEquals(1024 * 1024, v8.adjustExternalMemory(1024 * 1024));
+        assertEquals(1024 * 1024, v8.getNativeMemoryUsage().getExternalBytes());
+
+        assertEquals(0, v8.adjustExternalMemory(-1024 * 1024));
+    }
+
+    @Test
+    public void testExternalMemoryIsReported() {
+        v8.adjustExternalMemory(1024 * 1024);
+
+        V8NativeMemoryUsage usage = v8.getNativeMemoryUsage();
+
+        assertEquals(usage.getTotalBytes(), usage.getReportedBytes());
+        v8.adjustExternalMemory(-1024 * 1024);
+    }
+
+    @Test
+    public void testTotalNativeMemory() {
+        V8NativeMemoryUsage usage = v8.getNativeMemoryUsage();
+
+        assertEquals(usage.getHandleBytes() + usage.getCallbackBytes() + usage.getKeyCacheBytes()
+                + usage.getIdentityIndexBytes() + usage.getExternalBytes(), usage.getTotalBytes());
+    }
+
+    /*** Runtime Configuration ***/
+    @Test
+    public void testCreateRuntimeWithConfig() {
+        V8 runtime = V8.createV8Runtime(new V8RuntimeConfig().setMaxOldSpaceSize(64).setMaxYoungSpaceSize(4).setStackLimit(512));
+
+        assertEquals(3, runtime.executeIntScript("1 + 2"));
+        runtime.release();
+    }
+
+    @Test
+    public void testCreateRuntimeWithConfigGlobalAlias() {
+        V8 runtime = V8.createV8Runtime(new V8RuntimeConfig().setGlobalAlias("window"));
+
+        assertTrue(runtime.executeBooleanScript("window === this"));
+        runtime.release();
+    }
+
+    @Test
+    public void testHeapLimitHandlerTerminatesScript() {
+        final boolean[] called = new boolean[1];
+        V8 runtime = V8.createV8Runtime(new V8RuntimeConfig().setMaxOldSpaceSize(32).setHeapLimitThreshold(50)
+                .setHeapLimitHandler(new HeapLimitHandler() {
+
+                    @Override
+                    public boolean nearHeapLimit(final V8 runtime, final long usedHeapSize, final long heapSizeLimit) {
+                        called[0] = true;
+                        return true;
+                    }
+                }));
+        try {
+            runtime.executeVoidScript("var a = []; while (true) { a.push({foo : 'bar'}); }");
+        } catch (V8RuntimeException e) {
+            assertTrue(called[0]);
+            return;
+        } finally {
+            runtime.release();
+        }
+        fail("Script not terminated.");
+    }
+
+    @Test
+    public void testHeapLimitHandlerDoesNotTerminateIdleRuntime() {
+        final boolean[] terminate = new boolean[1];
+        final int[] calls = new int[1];
+        V8 runtime = V8.createV8Runtime(new V8RuntimeConfig().setMaxOldSpaceSize(32).setHeapLimitThreshold(10)
+                .setHeapLimitHandler(new HeapLimitHandler() {
+
+                    @Override
+                    public boolean nearHeapLimit(final V8 runtime, final long usedHeapSize, final long heapSizeLimit) {
+                        calls[0]++;
+                        return terminate[0];
+                    }
+                }));
+        try {
+            runtime.executeVoidScript("var a = []; for (var i = 0; i < 100000; i++) { a.push({foo : 'bar' + i}); }");
+            terminate[0] = true;
+            runtime.lowMemoryNotification();
+
+            assertTrue(calls[0] > 0);
+            assertEquals(2, runtime.executeIntScript("1 + 1"));
+        } finally {
+            runtime.release();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSpaceSize() {
+        new V8RuntimeConfig().setMaxOldSpaceSize(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSpaceSizeTooLarge() {
+        new V8RuntimeConfig().setMaxOldSpaceSize(4096);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHeapLimitThreshold() {
+        new V8RuntimeConfig().setHeapLimitThreshold(0);
+    }
+
+    /*** Heap Statistics ***/
+    @Test
+    public void testGetHeapStatistics() {
+        V8HeapStatistics statistics = v8.getHeapStatistics();
+
+        assertTrue(statistics.getUsedHeapSize() > 0);
+        assertTrue(statistics.getTotalHeapSize() >= statistics.getUsedHeapSize());
+        assertTrue(statistics.getHeapSizeLimit() >= statistics.getTotalHeapSize());
+    }
+
+    @Test
+    public void testHeapStatisticsExternalMemory() {
+        long before = v8.getHeapStatistics().getExternalMemory();
+        v8.adjustExternalMemory(1024 * 1024);
+
+        assertTrue(v8.getHeapStatistics().getExternalMemory() > before);
+        v8.adjustExternalMemory(-1024 * 1024);
+    }
+
+    @Test
+    public void testHeapLimitFromConfig() {
+        V8 runtime = V8.createV8Runtime(new V8RuntimeConfig().setMaxOldSpaceSize(64));
+
+        assertTrue(runtime.getHeapStatistics().getHeapSizeLimit() < v8.getHeapStatistics().getHeapSizeLimit());
+        runtime.release();
+    }
+
+    @Test
+    public void testGCListenerNotified() {
+        final List<Integer> started = new ArrayList<>();
+        final List<Long> pauses = new ArrayList<>();
+        v8.addGCListener(new GCListener() {
+
+            @Override
+            public void gcStarted(final V8 runtime, final int type) {
+                started.add(type);
+            }
+
+            @Override
+            public void gcFinished(final V8 runtime, final int type, final long pauseMicros) {
+                pauses.add(pauseMicros);
+            }
+        });
+
+        v8.executeVoidScript("for (var i = 0; i < 100000; i++) { var a = {foo : i}; }");
+
+        assertFalse(started.isEmpty());
+        assertEquals(started.size(), pauses.size());
+        assertTrue(pauses.get(0) >= 0);
+    }
+
+    @Test
+    public void testRemoveGCListener() {
+        GCListener listener = mock(GCListener.class);
+        v8.addGCListener(listener);
+        v8.removeGCListener(listener);
+
+        v8.executeVoidScript("for (var i = 0; i < 100000; i++) { var a = {foo : i}; }");
+
+        verify(listener, never()).gcStarted(any(V8.class), anyInt());
+    }
+
+
+    @Test(expected = V8ScriptTerminatedException.class)
+    public void testExecutionTimeoutTerminatesScript() {
+        v8.setExecutionTimeout(100);
+
+        v8.executeVoidScript("while (true) {}");
+    }
+
+    @Test
+    public void testExecutionTimeoutTerminatesFunction() {
+        v8.executeVoidScript("function spin() { while (true) {} }");
+        v8.setExecutionTimeout(100);
+
+        try {
+            v8.executeVoidFunction("spin", null);
+        } catch (V8ScriptTerminatedException e) {
+            return;
+        }
+        fail("Function not terminated.");
+    }
+
+    @Test
+    public void testRuntimeReusableAfterTermination() {
+        v8.setExecutionTimeout(100);
+        try {
+            v8.executeVoidScript("while (true) {}");
+        } catch (V8ScriptTerminatedException e) {
+            // expected
+        }
+
+        assertEquals(3, v8.executeIntScript("1 + 2"));
+    }
+
+    @Test
+    public void testExecutionTimeoutNotHitByFastScripts() {
+        v8.setExecutionTimeout(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, v8.executeIntScript(String.valueOf(i)));
+        }
+    }
+
+    @Test
+    public void testExecutionTimeoutCanBeDisabled() {
+        v8.setExecutionTimeout(100);
+        v8.setExecutionTimeout(0);
+
+        assertEquals(0, v8.getExecutionTimeout());
+        assertEquals(1000000, v8.executeIntScript("var i = 0; for (var j = 0; j < 1000000; j++) { i++; }; i;"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeExecutionTimeout() {
+        v8.setExecutionTimeout(-1);
+    }
+
+    @Test
+    public void testTerminateExecutionFromOtherThread() throws InterruptedException {
+        Thread terminator = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                v8.terminateExecution();
+            }
+        });
+        terminator.start();
+        try {
+            v8.executeVoidScript("while (true) {}");
+        } catch (V8ScriptTerminatedException e) {
+            terminator.join();
+            return;
+        }
+        fail("Script not terminated.");
+    }
+
+    @Test
+    public void testTerminateExecutionWithoutScriptIsIgnored() {
+        v8.terminateExecution();
+
+        assertEquals(3, v8.executeIntScript("1 + 2"));
+    }
+
+    @Test
+    public void testExecutionTimeoutCoversNestedCalls() {
+        v8.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                v8.executeVoidScript("while (true) {}");
+            }
+        }, "spin");
+        v8.setExecutionTimeout(100);
+
+        try {
+            v8.executeVoidScript("spin(); throw 'not terminated';");
+        } catch (V8ScriptTerminatedException e) {
+            assertEquals(3, v8.executeIntScript("1 + 2"));
+            return;
+        }
+        fail("Script not terminated.");
+    }
+
+
+    @Test
+    public void testResetDiscardsGlobals() {
+        v8.executeVoidScript("var foo = 7;");
+
+        v8.reset();
+
+        assertEquals("undefined", v8.executeStringScript("typeof foo"));
+        assertFalse(v8.contains("foo"));
+    }
+
+    @Test
+    public void testRuntimeUsableAfterReset() {
+        v8.reset();
+        v8.add("foo", 7);
+
+        assertEquals(14, v8.executeIntScript("foo * 2"));
+    }
+
+    @Test
+    public void testResetReleasesOutstandingObjects() {
+        V8Object object = v8.executeObjectScript("({foo : 'bar'})");
+        V8Array array = new V8Array(v8);
+
+        v8.reset();
+
+        assertTrue(object.isReleased());
+        assertTrue(array.isReleased());
+        object.release();
+        array.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAccessObjectAfterReset() {
+        V8Object object = v8.executeObjectScript("({foo : 'bar'})");
+        v8.reset();
+
+        object.getString("foo");
+    }
+
+    @Test
+    public void testNoLeakReportedAfterReset() {
+        V8 runtime = V8.createV8Runtime();
+        runtime.executeObjectScript("({foo : 'bar'})");
+
+        runtime.reset();
+
+        runtime.release(true);
+    }
+
+    @Test
+    public void testStaleHandleDoesNotResolveToNewObject() {
+        V8Object before = v8.executeObjectScript("({foo : 'before'})");
+        v8.reset();
+        V8Object after = v8.executeObjectScript("({foo : 'after'})");
+
+        before.release();
+
+        assertFalse(after.isReleased());
+        assertEquals("after", after.getString("foo"));
+        after.release();
+    }
+
+    @Test
+    public void testResetRemovesCallbacks() {
+        v8.registerJavaMethod(new JavaCallback() {
+
+            @Override
+            public Object invoke(final V8Array parameters) {
+                return 7;
+            }
+        }, "foo");
+
+        v8.reset();
+
+        assertEquals("undefined", v8.executeStringScript("typeof foo"));
+    }
+
+    @Test
+    public void testResetClosesMemoryScopes() {
+        V8MemoryScope scope = new V8MemoryScope(v8);
+        new V8Object(v8);
+
+        v8.reset();
+
+        assertTrue(scope.isClosed());
+        scope.close();
+    }
+
+    @Test
+    public void testResetKeepsGlobalAlias() {
+        V8 runtime = V8.createV8Runtime("window");
+        runtime.reset();
+        runtime.executeVoidScript("var foo = 7;");
+
+        assertEquals(7, runtime.executeIntScript("window.foo"));
+        runtime.release();
+    }
+
+    @Test
+    public void testResetRunsPendingPromiseReactionsFirst() {
+        final List<String> calls = new ArrayList<>();
+        v8.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                calls.add(parameters.getString(0));
+            }
+        }, "record");
+        v8.setAutoRunMicrotasks(false);
+        v8.executeVoidScript("Promise.resolve('old').then(function(value) { record(value); });");
+
+        v8.reset();
+        v8.runMicrotasks();
+
+        assertEquals(1, calls.size());
+        assertEquals("old", calls.get(0));
+        assertEquals(3, v8.executeIntScript("1 + 2"));
+    }
+
+    @Test
+    public void testResetRestoresPerUserSettings() {
+        GCListener listener = mock(GCListener.class);
+        v8.addGCListener(listener);
+        v8.setExecutionTimeout(1000);
+        v8.setAutoRunMicrotasks(false);
+
+        v8.reset();
+        v8.executeVoidScript("for (var i = 0; i < 100000; i++) { var a = {foo : i}; }");
+
+        verify(listener, never()).gcStarted(any(V8.class), anyInt());
+        assertEquals(0, v8.getExecutionTimeout());
+        assertTrue(v8.isAutoRunMicrotasks());
+    }
+
+    @Test
+    public void testResetWhileExecutingFails() {
+        v8.registerJavaMethod(new JavaVoidCallback() {
+
+            @Override
+            public void invoke(final V8Array parameters) {
+                v8.reset();
+            }
+        }, "reset");
+
+        try {
+            v8.executeVoidScript("reset();");
+        } catch (RuntimeException e) {
+            assertEquals(3, v8.executeIntScript("1 + 2"));
+            return;
+        }
+        fail("Runtime reset while executing.");
+    }
+
+    @Test
+    public void testIdleNotificationFinishes() {
+        v8.executeVoidScript("var garbage = []; for (var i = 0; i < 10000; i++) { garbage.push({ value : i }); } garbage = null;");
+
+        boolean done = false;
+        for (int i = 0; (i < 1000) && !done; i++) {
+            done = v8.idleNotification(10);
+        }
+
+        assertTrue(done);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIdleNotificationRequiresIdleTime() {
+        v8.idleNotification(0);
+    }
+
+    @Test
+    public void testLowMemoryNotification() {
+        v8.executeVoidScript("var foo = { bar : 7 };");
+
+        v8.lowMemoryNotification();
+
+        assertEquals(7, v8.executeIntScript("foo.bar"));
+    }
+
+}
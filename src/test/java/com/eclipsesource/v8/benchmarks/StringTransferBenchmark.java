@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Object;
+
+/**
+ * Measures CPU time and Java garbage per string crossing for string heavy
+ * workloads. Run it against two builds of the native library to compare
+ * string transfer strategies:
+ *
+ * java -Djava.library.path=jni -cp target/classes:target/test-classes com.eclipsesource.v8.benchmarks.StringTransferBenchmark
+ */
+public class StringTransferBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20000;
+    private static final int ITERATIONS        = 200000;
+
+    private final V8         v8;
+    private final V8Object   object;
+    private final V8Array    array;
+
+    public StringTransferBenchmark(final String value) {
+        v8 = V8.createV8Runtime();
+        object = new V8Object(v8);
+        object.add("key", value);
+        array = new V8Array(v8);
+        for (int i = 0; i < 100; i++) {
+            array.push(value);
+        }
+    }
+
+    public void release() {
+        object.release();
+        array.release();
+        v8.release();
+    }
+
+    public static void main(final String[] args) {
+        run("latin-1 short", createString("abcdefghij\u00e9", 1));
+        run("latin-1 long", createString("abcdefghij\u00e9", 1000));
+        run("utf-16 short", createString("\u03b1\u03b2\u03b3\ud83d\ude00", 1));
+        run("utf-16 long", createString("\u03b1\u03b2\u03b3\ud83d\ude00", 1000));
+    }
+
+    private static void run(final String name, final String value) {
+        final StringTransferBenchmark benchmark = new StringTransferBenchmark(value);
+        try {
+            benchmark.measure(name + " add", new Runnable() {
+                @Override
+                public void run() {
+                    benchmark.object.add("key", value);
+                }
+            });
+            benchmark.measure(name + " getString", new Runnable() {
+                @Override
+                public void run() {
+                    benchmark.object.getString("key");
+                }
+            });
+            benchmark.measure(name + " getStrings", new Runnable() {
+                @Override
+                public void run() {
+                    benchmark.array.getStrings(0, 100);
+                }
+            });
+            benchmark.measure(name + " getKeys", new Runnable() {
+                @Override
+                public void run() {
+                    benchmark.object.getKeys();
+                }
+            });
+        } finally {
+            benchmark.release();
+        }
+    }
+
+    private void measure(final String name, final Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        long bytesStart = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesStart;
+        System.out.println(String.format("%-32s %10d ns/op %10d bytes/op", name, cpu / ITERATIONS, bytes / ITERATIONS));
+    }
+
+    private static String createString(final String pattern, final int repeat) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < repeat; i++) {
+            result.append(pattern);
+        }
+        return result.toString();
+    }
+
+}
@@ -556,6 +556,39 @@ public class V8ObjectUtilsTest {
         assertEquals("cat", v8.executeStringScript("result.animals[1]"));
     }
 
+    @Test
+    public void testCreateV8ObjectWithUndefinedAndNestedValues() {
+        Map<String, Object> map = new HashMap<>();
+        Map<String, Object> child = new HashMap<>();
+        List<Object> list = new ArrayList<>();
+        list.add(null);
+        list.add(7L);
+        list.add(1.5f);
+        child.put("list", list);
+        child.put("flag", true);
+        map.put("child", child);
+        map.put("nothing", null);
+
+        registerAndRelease("result", map);
+
+        assertTrue(v8.executeBooleanScript("result.nothing === undefined"));
+        assertTrue(v8.executeBooleanScript("result.child.flag"));
+        assertTrue(v8.executeBooleanScript("result.child.list[0] === undefined"));
+        assertEquals(7, v8.executeIntScript("result.child.list[1]"));
+        assertEquals(1.5, v8.executeDoubleScript("result.child.list[2]"), 0.000001);
+    }
+
+    @Test
+    public void testCreateV8ObjectWithSupplementaryCharacters() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("\u00e9t\u00e9", "\ud83d\ude00");
+
+        registerAndRelease("result", map);
+
+        assertEquals(2, v8.executeIntScript("result['\u00e9t\u00e9'].length"));
+        assertEquals(0xD83D, v8.executeIntScript("result['\u00e9t\u00e9'].charCodeAt(0)"));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testCreateV8ObjectWithInvalidContents() {
         Map<String, Object> map = new HashMap<>();
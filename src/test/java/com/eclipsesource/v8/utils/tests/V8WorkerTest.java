@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2014 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package com.eclipsesource.v8.utils.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eclipsesource.v8.JavaVoidCallback;
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8EventLoop;
+import com.eclipsesource.v8.V8Future;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.V8RuntimeConfig;
+import com.eclipsesource.v8.V8ScriptExecutionException;
+import com.eclipsesource.v8.utils.V8Worker;
+
+public class V8WorkerTest {
+
+    private V8 v8;
+
+    @Before
+    public void seutp() {
+        v8 = V8.createV8Runtime();
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            v8.release();
+            if (V8.getActiveRuntimes() != 0) {
+                throw new IllegalStateException("V8Runtimes not properly released.");
+            }
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    private static class FutureHandler implements V8Worker.MessageHandler {
+
+        final V8Future<ByteBuffer> message = new V8Future<>();
+        final V8Future<Exception>  error   = new V8Future<>();
+
+        @Override
+        public void onMessage(final V8Worker worker, final ByteBuffer data) {
+            message.complete(data);
+        }
+
+        @Override
+        public void onError(final V8Worker worker, final Exception e) {
+            error.complete(e);
+        }
+    }
+
+    @Test
+    public void testPostMessage() throws Exception {
+        FutureHandler handler = new FutureHandler();
+        V8Worker worker = new V8Worker("worker", "onmessage = function(e) { postMessage(e.data * 2); };", handler);
+        worker.start();
+
+        worker.postMessage(V8Worker.encodeMessage(v8, 21));
+
+        assertEquals(42, V8Worker.decodeMessage(v8, handler.message.get(5, TimeUnit.SECONDS)));
+        worker.terminate();
+        assertTrue(worker.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPostObjectMessage() throws Exception {
+        FutureHandler handler = new FutureHandler();
+        V8Worker worker = new V8Worker("worker",
+                "onmessage = function(e) { postMessage({ sum : e.data.values.reduce(function(a, b) { return a + b; }) }); };",
+                handler);
+        worker.start();
+        V8Object message = v8.executeObjectScript("({ values : [1, 2, 3, 4] })");
+
+        worker.postMessage(V8Worker.encodeMessage(v8, message));
+
+        V8Object result = (V8Object) V8Worker.decodeMessage(v8, handler.message.get(5, TimeUnit.SECONDS));
+        assertEquals(10, result.getInteger("sum"));
+        message.release();
+        result.release();
+        worker.terminate();
+        assertTrue(worker.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testErrorInWorkerScript() throws Exception {
+        FutureHandler handler = new FutureHandler();
+        V8Worker worker = new V8Worker("worker", "throw 'fail';", handler);
+        worker.start();
+
+        assertTrue(handler.error.get(5, TimeUnit.SECONDS) instanceof V8ScriptExecutionException);
+        worker.terminate();
+        assertTrue(worker.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCloseEndsWorker() throws Exception {
+        V8Worker worker = new V8Worker("worker", "close();", new FutureHandler());
+        worker.start();
+
+        assertTrue(worker.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(worker.isTerminated());
+    }
+
+    @Test
+    public void testWorkerFromJavaScript() throws Exception {
+        final V8EventLoop loop = new V8EventLoop("main", new V8RuntimeConfig());
+        final V8Future<Object> result = new V8Future<>();
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                V8Worker.install(loop);
+                loop.getRuntime().registerJavaMethod(new JavaVoidCallback() {
+
+                    @Override
+                    public void invoke(final V8Array parameters) {
+                        result.complete(parameters.get(0));
+                    }
+                }, "done");
+                loop.getRuntime().executeVoidScript("var worker = new Worker('onmessage = function(e) { postMessage(e.data.join(\"-\")); };');\n"
+                        + "worker.onmessage = function(e) { worker.terminate(); done(e.data); };\n"
+                        + "worker.postMessage(['a', 'b', 'c']);\n");
+            }
+        });
+        loop.start();
+
+        assertEquals("a-b-c", result.get(5, TimeUnit.SECONDS));
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWorkerErrorFromJavaScript() throws Exception {
+        final V8EventLoop loop = new V8EventLoop("main", new V8RuntimeConfig());
+        final V8Future<Object> result = new V8Future<>();
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                V8Worker.install(loop);
+                loop.getRuntime().registerJavaMethod(new JavaVoidCallback() {
+
+                    @Override
+                    public void invoke(final V8Array parameters) {
+                        result.complete(parameters.get(0));
+                    }
+                }, "done");
+                loop.getRuntime().executeVoidScript("var worker = new Worker('onmessage = function(e) { throw new Error(\"boom\"); };');\n"
+                        + "worker.onerror = function(e) { worker.terminate(); done(e.message.indexOf('boom') >= 0); };\n"
+                        + "worker.postMessage(1);\n");
+            }
+        });
+        loop.start();
+
+        assertEquals(true, result.get(5, TimeUnit.SECONDS));
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testHostShutdownTerminatesWorkers() throws Exception {
+        final V8EventLoop loop = new V8EventLoop("main", new V8RuntimeConfig());
+        final V8Future<Object> result = new V8Future<>();
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                V8Worker.install(loop);
+                loop.getRuntime().registerJavaMethod(new JavaVoidCallback() {
+
+                    @Override
+                    public void invoke(final V8Array parameters) {
+                        result.complete(parameters.get(0));
+                    }
+                }, "done");
+                loop.getRuntime().executeVoidScript("var worker = new Worker('onmessage = function(e) { postMessage(e.data); };');\n"
+                        + "worker.onmessage = function(e) { done(e.data); };\n"
+                        + "worker.postMessage('ready');\n");
+            }
+        });
+        loop.start();
+        assertEquals("ready", result.get(5, TimeUnit.SECONDS));
+
+        loop.shutdown();
+
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(awaitActiveRuntimes(1));
+    }
+
+    @Test
+    public void testClosedWorkerIsForgotten() throws Exception {
+        final V8EventLoop loop = new V8EventLoop("main", new V8RuntimeConfig());
+        final V8Future<Object> result = new V8Future<>();
+        loop.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                V8Worker.install(loop);
+                loop.getRuntime().registerJavaMethod(new JavaVoidCallback() {
+
+                    @Override
+                    public void invoke(final V8Array parameters) {
+                        result.complete(parameters.get(0));
+                    }
+                }, "done");
+                loop.getRuntime().executeVoidScript("var worker = new Worker('postMessage(1); close();');\n"
+                        + "worker.onmessage = function(e) { done(e.data); };\n");
+            }
+        });
+        loop.start();
+        assertEquals(1, result.get(5, TimeUnit.SECONDS));
+
+        assertTrue(awaitActiveRuntimes(2));
+        V8Future<Boolean> posted = loop.submit(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() {
+                loop.getRuntime().executeVoidScript("worker.postMessage(2);");
+                return true;
+            }
+        });
+
+        assertTrue(posted.get(5, TimeUnit.SECONDS));
+        loop.shutdown();
+        assertTrue(loop.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static boolean awaitActiveRuntimes(final int count) throws InterruptedException {
+        long end = System.currentTimeMillis() + 5000;
+        while ((V8.getActiveRuntimes() != count) && (System.currentTimeMillis() < end)) {
+            Thread.sleep(5);
+        }
+        return V8.getActiveRuntimes() == count;
+    }
+
+}